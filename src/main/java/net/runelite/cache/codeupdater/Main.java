@@ -24,18 +24,34 @@
  */
 package net.runelite.cache.codeupdater;
 
+import com.google.common.base.Throwables;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.IntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.ConfigType;
@@ -47,8 +63,11 @@ import net.runelite.cache.codeupdater.apifiles.ItemVariationsUpdate;
 import net.runelite.cache.codeupdater.apifiles.ParamUpdate;
 import net.runelite.cache.codeupdater.apifiles.QuestUpdate;
 import net.runelite.cache.codeupdater.apifiles.SpriteUpdate;
+import net.runelite.cache.codeupdater.client.DownloadJournal;
 import net.runelite.cache.codeupdater.client.JS5Client;
 import net.runelite.cache.codeupdater.client.UpdateHandler;
+import net.runelite.cache.codeupdater.git.CommitChain;
+import net.runelite.cache.codeupdater.git.GitStats;
 import net.runelite.cache.codeupdater.git.Repo;
 import net.runelite.cache.codeupdater.script.ScriptIDUpdate;
 import net.runelite.cache.codeupdater.script.ScriptUpdate;
@@ -56,8 +75,10 @@ import net.runelite.cache.codeupdater.srn.SRNUpdate;
 import net.runelite.cache.codeupdater.widgets.WidgetUpdate;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
 
 @Slf4j
 public class Main
@@ -68,6 +89,13 @@ public class Main
 	public static String branchName;
 	public static String versionText;
 
+	private static final Map<Integer, CompletableFuture<Void>> indexesDownloaded = new ConcurrentHashMap<>();
+	private static CompletableFuture<Void> downloaded = CompletableFuture.completedFuture(null);
+	private static Future<?> download;
+
+	// how long each startup stage took, in the order they finished
+	private static final Map<String, Long> startupTimes = Collections.synchronizedMap(new LinkedHashMap<>());
+
 	public static ExecutorService exec = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() + 2);
 
 	public static Gson GSON = new GsonBuilder()
@@ -81,7 +109,31 @@ public class Main
 		{
 			var js5Builder = new JS5Client.Builder().fromConfig();
 
+			// repositories fetch in the background while the js5 cache is set up, and the caches load
+			long startupStart = System.currentTimeMillis();
+			GitStats.Sample startupStats = GitStats.sample();
+			boolean cacheRepo = Stream.of("cache.next", "cache.previous")
+				.anyMatch(k -> Settings.get(k).startsWith("commit="));
+			Map<Repo, CompletableFuture<Repository>> repos = new EnumMap<>(Repo.class);
+			Map<Repo, CompletableFuture<RevCommit>> branchPoints = new EnumMap<>(Repo.class);
+			List<CompletableFuture<?>> startup = new ArrayList<>();
+			for (Repo repo : Repo.values())
+			{
+				if (repo == Repo.OSRS_CACHE && !cacheRepo)
+				{
+					continue;
+				}
+
+				String name = repo.name().toLowerCase();
+				CompletableFuture<Repository> opened = startupStage("open " + name, repo::get);
+				CompletableFuture<RevCommit> resolved = startupStage("resolve " + name, repo::getBranchPoint, opened);
+				repos.put(repo, opened);
+				branchPoints.put(repo, resolved);
+				startup.add(resolved);
+			}
+
 			boolean empty = false;
+			File js5Dir = null;
 			if (js5Builder.hostname() != null)
 			{
 				String next = Settings.get("cache.next");
@@ -91,18 +143,43 @@ public class Main
 					throw new IllegalArgumentException("cache.next must be dir= in js5 mode");
 				}
 
-				var dir = new File(parts[1]);
-				empty = !dir.exists();
+				js5Dir = new File(parts[1]);
+				empty = !js5Dir.exists();
 				if (empty)
 				{
-					dir.mkdirs();
+					js5Dir.mkdirs();
+
+					// this has to happen before next is opened, which would initialize an empty cache
+					empty = !copyCacheDirectory("js5.previous", js5Dir);
 				}
 			}
 
-			next = Settings.openCache("cache.next");
-			String oneline = Settings.getCacheName("cache.next");
+			CompletableFuture<?> cacheRepoOpened = repos.getOrDefault(Repo.OSRS_CACHE, CompletableFuture.completedFuture(null));
+			boolean js5 = js5Builder.hostname() != null;
+			CompletableFuture<Store> nextLoaded = startupStage("load cache.next", () -> js5
+				? Settings.openDownloadCache("cache.next")
+				: Settings.openCache("cache.next"), cacheRepoOpened);
+			CompletableFuture<Store> previousLoaded = startupStage("load cache.previous", () -> Settings.openCache("cache.previous"), cacheRepoOpened);
+			startup.add(nextLoaded);
+			startup.add(previousLoaded);
+			CompletableFuture<Void> started = CompletableFuture.allOf(startup.toArray(new CompletableFuture[0]))
+				.thenRun(() ->
+				{
+					synchronized (startupTimes)
+					{
+						log.info("Startup took {}ms: {}", System.currentTimeMillis() - startupStart, startupTimes.entrySet().stream()
+							.map(e -> e.getKey() + " " + e.getValue() + "ms")
+							.collect(Collectors.joining(", ")));
+					}
+
+					GitStats.log("startup", startupStats);
+				});
 
-			previous = Settings.openCache("cache.previous");
+			// the download only needs next; the repositories are awaited right before the updaters that use them
+			await(nextLoaded);
+			next = nextLoaded.get();
+
+			String oneline = Settings.getCacheName("cache.next");
 
 			if (js5Builder.hostname() != null)
 			{
@@ -123,20 +200,71 @@ public class Main
 					js5Builder.rev(UpdateHandler.extractRevision(Settings.getCacheName("cache.previous")));
 				}
 
-				try (JS5Client jsc = new JS5Client(js5Builder.store(next)))
+				Queue<Integer> todo = js5Builder.newQueue();
+				todo.add(0xFF00FF);
+
+				DownloadJournal journal = Settings.getBool("js5.journal")
+					? new DownloadJournal(new File(js5Dir, "js5.journal"))
+					: null;
+				if (journal != null)
 				{
-					jsc.enqueueRoot();
-					jsc.process();
+					JS5Client.replay(next, journal, todo);
+					js5Builder.journal(journal);
 				}
-				next.save();
+
+				// updaters start as soon as the indexes they read are complete, while the rest downloads
+				downloaded = new CompletableFuture<>();
+				js5Builder.store(next)
+					.indexListener(id -> indexDownloaded(id).complete(null));
+				download = exec.submit(() ->
+				{
+					try
+					{
+						try (JS5Client jsc = new JS5Client(js5Builder))
+						{
+							jsc.setToDownload(todo);
+							jsc.process();
+						}
+						next.save();
+
+						if (journal != null)
+						{
+							journal.clear();
+						}
+					}
+					catch (Exception | Error e)
+					{
+						downloaded.completeExceptionally(e);
+						throw e;
+					}
+
+					downloaded.complete(null);
+					return null;
+				});
 			}
 
 			versionText = oneline.replace("Cache version ", "");
 			branchName = Settings.get("runelite.branch").replace("%", versionText);
 
+			await(previousLoaded);
+			previous = previousLoaded.get();
+
+			await(branchPoints.get(Repo.RUNELITE));
+			GitStats.Sample stats = GitStats.sample();
 			updateRunelite();
+			GitStats.log("runelite update", stats);
 
+			await(branchPoints.get(Repo.SRN));
+			stats = GitStats.sample();
 			updateSRN();
+			GitStats.log("static.runelite.net update", stats);
+
+			await(started);
+
+			if (download != null)
+			{
+				download.get();
+			}
 		}
 		finally
 		{
@@ -152,20 +280,29 @@ public class Main
 		Repository rl = Repo.RUNELITE.get();
 		Repo.RUNELITE.branch(branchName);
 
-		execAllAndWait(
-			APIUpdate::update,
-			GameValWriter::update,
-			ItemVariationsUpdate::update,
-			WidgetUpdate::update,
-			ScriptUpdate::update,
-			ScriptIDUpdate::update,
-			QuestUpdate::update,
-			SpriteUpdate::update,
-			EnumUpdate::update,
-			ParamUpdate::update
+		List<RunAndThrow> updaters = List.of(
+			afterIndexes(APIUpdate::update, IndexType.CONFIGS),
+			afterIndexes(GameValWriter::update, IndexType.GAMEVALS, IndexType.CONFIGS, IndexType.INTERFACES),
+			afterIndexes(ItemVariationsUpdate::update, IndexType.CONFIGS),
+			afterIndexes(WidgetUpdate::update, IndexType.INTERFACES),
+			afterIndexes(ScriptUpdate::update, IndexType.CLIENTSCRIPT),
+			afterIndexes(ScriptIDUpdate::update, IndexType.CLIENTSCRIPT),
+			afterIndexes(QuestUpdate::update, IndexType.CONFIGS, IndexType.DBTABLEINDEX),
+			afterIndexes(SpriteUpdate::update, IndexType.SPRITES),
+			afterIndexes(EnumUpdate::update, IndexType.CONFIGS),
+			afterIndexes(ParamUpdate::update, IndexType.CONFIGS)
 		);
 
+		// updaters commit in the order they are listed, regardless of which finishes first
+		try (CommitChain chain = CommitChain.begin(rl, branchName))
+		{
+			execAllAndWait(IntStream.range(0, updaters.size())
+				.mapToObj(i -> chain.ordered(i, updaters.get(i))));
+			chain.complete();
+		}
+
 		Repo.RUNELITE.pushBranch(branchName);
+		Repo.RUNELITE.push();
 	}
 
 	private static void updateSRN() throws Exception
@@ -174,9 +311,11 @@ public class Main
 		Repository srn = Repo.SRN.get();
 		Repo.SRN.branch(branchName);
 
+		awaitIndexes(IndexType.CONFIGS, IndexType.MODELS, IndexType.SPRITES, IndexType.TEXTURES);
 		SRNUpdate.update();
 
 		Repo.SRN.pushBranch(branchName);
+		Repo.SRN.push();
 	}
 
 	public interface RunAndThrow
@@ -184,6 +323,77 @@ public class Main
 		void run() throws Exception;
 	}
 
+	/**
+	 * Runs {@code stage} on {@link #exec} once every stage in {@code after} has completed,
+	 * recording how long it took in {@link #startupTimes}
+	 */
+	private static <T> CompletableFuture<T> startupStage(String name, Callable<T> stage, CompletableFuture<?>... after)
+	{
+		return CompletableFuture.allOf(after).thenApplyAsync(v ->
+		{
+			long start = System.currentTimeMillis();
+			try
+			{
+				return stage.call();
+			}
+			catch (Exception e)
+			{
+				throw new CompletionException(e);
+			}
+			finally
+			{
+				startupTimes.put(name, System.currentTimeMillis() - start);
+			}
+		}, exec);
+	}
+
+	private static void await(CompletableFuture<?> future) throws Exception
+	{
+		try
+		{
+			future.get();
+		}
+		catch (ExecutionException e)
+		{
+			Throwables.propagateIfPossible(e.getCause(), Exception.class);
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	private static CompletableFuture<Void> indexDownloaded(int id)
+	{
+		return indexesDownloaded.computeIfAbsent(id, k -> new CompletableFuture<>());
+	}
+
+	/**
+	 * Blocks until the indexes have finished downloading into {@link #next}, or the whole
+	 * download has finished
+	 */
+	public static void awaitIndexes(IndexType... indexes) throws Exception
+	{
+		for (IndexType index : indexes)
+		{
+			try
+			{
+				CompletableFuture.anyOf(indexDownloaded(index.getNumber()), downloaded).get();
+			}
+			catch (ExecutionException e)
+			{
+				Throwables.propagateIfPossible(e.getCause(), Exception.class);
+				throw new RuntimeException(e.getCause());
+			}
+		}
+	}
+
+	private static RunAndThrow afterIndexes(RunAndThrow updater, IndexType... indexes)
+	{
+		return () ->
+		{
+			awaitIndexes(indexes);
+			updater.run();
+		};
+	}
+
 	public static <T extends Throwable> void execAllAndWait(RunAndThrow... runnables) throws T
 	{
 		execAllAndWait(Stream.of(runnables));
@@ -234,8 +444,68 @@ public class Main
 		};
 	}
 
+	/**
+	 * Copies the files of a directory cache as they are, if the cache is in a directory
+	 *
+	 * @return if the cache was copied
+	 */
+	private static boolean copyCacheDirectory(String key, File dst) throws IOException
+	{
+		var parts = Settings.get(key).split("=");
+		if (!"dir".equals(parts[0]))
+		{
+			return false;
+		}
+
+		File src = new File(parts[1]);
+		File[] files = src.listFiles(f -> f.isFile()
+			&& (f.getName().endsWith(".flatcache") || f.getName().startsWith("main_file_cache.")));
+		if (files == null || files.length == 0)
+		{
+			return false;
+		}
+
+		if (Files.isSameFile(src.toPath(), dst.toPath()))
+		{
+			throw new IllegalArgumentException(key + " must be a different directory than " + dst);
+		}
+
+		CopyProgress progress = new CopyProgress("bytes of " + parts[1], Stream.of(files)
+			.mapToLong(File::length)
+			.sum());
+		execAllAndWait(Stream.of(files)
+			.map(f -> () ->
+			{
+				// transferTo copies the data inside the kernel (sendfile on linux), without going through a java buffer
+				try (FileChannel in = FileChannel.open(f.toPath(), StandardOpenOption.READ);
+					FileChannel out = FileChannel.open(new File(dst, f.getName()).toPath(),
+						StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))
+				{
+					long size = in.size();
+					for (long pos = 0; pos < size; )
+					{
+						long n = in.transferTo(pos, size - pos, out);
+						if (n <= 0)
+						{
+							throw new IOException(f + " was truncated while it was being copied");
+						}
+						pos += n;
+						progress.add(n);
+					}
+				}
+			}));
+		progress.finish();
+
+		return true;
+	}
+
 	private static void copyStore(Store dst, Store src) throws IOException
 	{
+		CopyProgress progress = new CopyProgress("archives", src.getIndexes().stream()
+			.mapToLong(idx -> idx.getArchives().size())
+			.sum());
+
+		List<RunAndThrow> copies = new ArrayList<>();
 		for (Index srcIdx : src.getIndexes())
 		{
 			Index dstIdx = dst.addIndex(srcIdx.getId());
@@ -245,30 +515,73 @@ public class Main
 			dstIdx.setNamed(srcIdx.isNamed());
 			dstIdx.setProtocol(srcIdx.getProtocol());
 			dstIdx.setSized(srcIdx.isSized());
-			for (Archive srcArc : srcIdx.getArchives())
+			copies.add(() -> copyIndex(dst.getStorage(), src.getStorage(), dstIdx, srcIdx, progress));
+		}
+
+		execAllAndWait(copies.stream());
+		progress.finish();
+
+		dst.save();
+	}
+
+	private static void copyIndex(Storage dst, Storage src, Index dstIdx, Index srcIdx, CopyProgress progress) throws IOException
+	{
+		for (Archive srcArc : srcIdx.getArchives())
+		{
+			Archive dstArc = dstIdx.addArchive(srcArc.getArchiveId());
+
+			dstArc.setCompression(srcArc.getCompression());
+			dstArc.setCrc(srcArc.getCrc());
+			dstArc.setFileData(srcArc.getFileData());
+			dstArc.setNameHash(srcArc.getNameHash());
+			dstArc.setRevision(srcArc.getRevision());
+			dstArc.setCompressedSize(srcArc.getCompressedSize());
+			dstArc.setDecompressedSize(srcArc.getDecompressedSize());
+
+			byte[] data = src.loadArchive(srcArc);
+			if (data == null)
 			{
-				Archive dstArc = dstIdx.addArchive(srcArc.getArchiveId());
-
-				dstArc.setCompression(srcArc.getCompression());
-				dstArc.setCrc(srcArc.getCrc());
-				dstArc.setFileData(srcArc.getFileData());
-				dstArc.setNameHash(srcArc.getNameHash());
-				dstArc.setRevision(srcArc.getRevision());
-				dstArc.setCompressedSize(dstArc.getCompressedSize());
-				dstArc.setDecompressedSize(srcArc.getDecompressedSize());
-
-				byte[] data = src.getStorage().loadArchive(srcArc);
-				if (data == null)
-				{
-					System.out.println("" + srcIdx.getId() + " " + srcArc.getArchiveId());
-				}
-				else
+				log.warn("Missing data for archive {}/{}", srcIdx.getId(), srcArc.getArchiveId());
+			}
+			else
+			{
+				// indexes are copied in parallel, but the storage is shared
+				synchronized (dst)
 				{
-					dst.getStorage().saveArchive(dstArc, data);
+					dst.saveArchive(dstArc, data);
 				}
 			}
+			progress.add(1);
 		}
+	}
 
-		dst.save();
+	private static class CopyProgress
+	{
+		private final String unit;
+		private final long total;
+		private final long start = System.nanoTime();
+		private final AtomicLong done = new AtomicLong();
+
+		CopyProgress(String unit, long total)
+		{
+			this.unit = unit;
+			this.total = total;
+		}
+
+		void add(long n)
+		{
+			long before = done.getAndAdd(n);
+			long after = before + n;
+			if (total > 0 && before * 10 / total != after * 10 / total)
+			{
+				log.info("Copied {}/{} {} ({}%)", after, total, unit, after * 100 / total);
+			}
+		}
+
+		void finish()
+		{
+			long ms = (System.nanoTime() - start) / 1_000_000;
+			log.info("Copied {} {} in {}ms", done.get(), unit, ms);
+		}
 	}
 }
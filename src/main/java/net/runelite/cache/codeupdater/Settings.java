@@ -9,6 +9,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 import lombok.SneakyThrows;
+import net.runelite.cache.codeupdater.client.SynchronizedStorage;
 import net.runelite.cache.codeupdater.git.GitUtil;
 import net.runelite.cache.codeupdater.git.MutableCommit;
 import net.runelite.cache.codeupdater.git.Repo;
@@ -129,17 +130,7 @@ public class Settings
 		}
 		else if ("dir".equals(parts[0]))
 		{
-			Storage s;
-			if (new File(parts[1], "0.flatcache").exists())
-			{
-				s = new FlatStorage(new File(parts[1]));
-			}
-			else
-			{
-				s = new DiskStorage(new File(parts[1]));
-			}
-
-			Store st = new Store(s);
+			Store st = new Store(openDirectory(new File(parts[1])));
 			st.load();
 			return st;
 		}
@@ -149,6 +140,34 @@ public class Settings
 		}
 	}
 
+	/**
+	 * Opens the dir= cache at {@code key} for a js5 download, which writes archives to it while
+	 * the updaters read the indexes that have finished. The index list itself is only changed
+	 * while the root index is handled, which happens before any index is reported complete,
+	 * so updaters waiting on {@link Main#awaitIndexes} never see it change.
+	 */
+	public static Store openDownloadCache(String key) throws IOException
+	{
+		var parts = get(key).split("=");
+		if (!"dir".equals(parts[0]))
+		{
+			throw new IllegalArgumentException(key + " must be dir= in js5 mode");
+		}
+
+		Store st = new Store(new SynchronizedStorage(openDirectory(new File(parts[1]))));
+		st.load();
+		return st;
+	}
+
+	private static Storage openDirectory(File dir)
+	{
+		if (new File(dir, "0.flatcache").exists())
+		{
+			return new FlatStorage(dir);
+		}
+		return new DiskStorage(dir);
+	}
+
 	public static String getCacheName(String key) throws IOException
 	{
 		String val = Settings.get(key);
@@ -41,7 +41,8 @@ public class APIUpdate
 	{
 		Repository repo = Repo.RUNELITE.get();
 
-		MutableCommit mc = new MutableCommit("Legacy ID classes");
+		MutableCommit mc = new MutableCommit("Legacy ID classes")
+			.stream(repo);
 
 		{
 			ItemManager im = new ItemManager(Main.next);
@@ -54,7 +54,8 @@ public class GameValWriter
 {
 	public static void update() throws IOException, GitAPIException
 	{
-		MutableCommit mc = new MutableCommit("GameVals");
+		MutableCommit mc = new MutableCommit("GameVals")
+			.stream(Repo.RUNELITE.get());
 
 		if (Main.next.getIndex(IndexType.GAMEVALS) == null)
 		{
@@ -28,9 +28,6 @@ import com.google.common.base.Strings;
 import java.io.File;
 import java.net.ConnectException;
 import java.net.SocketTimeoutException;
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Queue;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.codeupdater.Settings;
@@ -43,7 +40,6 @@ import net.runelite.cache.fs.flat.FlatStorage;
 import net.runelite.cache.fs.jagex.DiskStorage;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.lib.TextProgressMonitor;
 import org.eclipse.jgit.transport.RefSpec;
 
 @Slf4j
@@ -70,11 +66,14 @@ public class Download
 		}
 
 		log.info("Loading store");
-		MutableCommit commit = new MutableCommit("Update cache", false);
+		MutableCommit commit = new MutableCommit("Update cache", false)
+			.stream(repo);
 		Store store;
+		File journalFile;
 		if (!branch.isEmpty())
 		{
 			store = GitUtil.openStore(repo, branch, commit);
+			journalFile = new File(repo.getDirectory(), "rlccau-" + branch.replace('/', '_') + ".journal");
 		}
 		else
 		{
@@ -110,50 +109,78 @@ public class Download
 
 			store = new Store(s);
 			store.load();
+			journalFile = new File(fdir, "js5.journal");
 		}
 
 		builder.store(store);
 
+		DownloadJournal journal = null;
+		if (Settings.getBool("js5.journal"))
+		{
+			journal = new DownloadJournal(journalFile);
+			builder.journal(journal);
+		}
+
 		boolean hostSet = builder.hostname() != null;
+		HostSupplier hs = new HostSupplier(!beta.isEmpty());
+		hs.setProbePort(builder.port());
+		PollSchedule poll = PollSchedule.fromConfig();
+
+		// kept open between cache versions while it stays healthy
+		JS5Client jsc = null;
 
 		for (; ; )
 		{
 			String tag = "oops";
-			Queue<Integer> todo = new ArrayDeque<>();
+			Queue<Integer> todo = builder.newQueue();
 			todo.add(0xFF00FF);
-			HostSupplier hs = new HostSupplier(!beta.isEmpty());
+			boolean resumed = false;
+			if (journal != null)
+			{
+				resumed = JS5Client.replay(store, journal, todo);
+			}
+			long seenAt = 0;
 			for (int attempt = 0; ; attempt++)
 			{
-				JS5Client jsc = null;
+				boolean healthy = false;
 				try
 				{
-					if (!hostSet)
+					if (jsc == null)
 					{
-						String host = hs.getHost(attempt % 16 == 0);
-						if (host == null)
+						if (!hostSet)
 						{
-							Thread.sleep(5000);
-							continue;
+							hs.setProbeRev(builder.rev());
+							String host = hs.getHost(attempt % 16 == 0);
+							if (host == null)
+							{
+								Thread.sleep(5000);
+								continue;
+							}
+
+							builder.hostname(host);
 						}
 
-						builder.hostname(host);
+						jsc = new JS5Client(builder);
+
+						// start from the accepted revision next time we reconnect
+						builder.rev(jsc.getRev());
 					}
 
-					jsc = new JS5Client(builder);
-					builder.rev(jsc.getRev());
 					jsc.toDownload = todo;
 					tag = UpdateHandler.calculateTag(repo, jsc.getRev(), beta);
 
 					for (; ; )
 					{
 						jsc.process();
-						if (jsc.hasSeenChange())
+						if (jsc.hasSeenChange() || resumed)
 						{
 							break;
 						}
-						Thread.sleep(5000);
+						poll.unchanged();
+						Thread.sleep(poll.nextDelay());
 						jsc.enqueueRoot();
 					}
+					healthy = true;
 				}
 				catch (ConnectException | SocketTimeoutException e)
 				{
@@ -165,28 +192,27 @@ public class Download
 					log.info("Error downloading cache", e);
 					Thread.sleep(5000);
 				}
-				finally
+
+				JS5Client used = jsc;
+				if (!healthy && jsc != null)
 				{
-					try
-					{
-						if (jsc != null)
-						{
-							jsc.close();
-						}
-					}
-					catch (Exception e)
-					{
-						log.warn("Error closing connection", e);
-					}
+					close(jsc);
+					jsc = null;
 				}
 
-				if (jsc != null && jsc.hasSeenChange())
+				if (used != null && (used.hasSeenChange() || resumed))
 				{
-					if (todo.isEmpty() && jsc.getUnreceivedRequests().isEmpty())
+					if (seenAt == 0 && used.hasSeenChange())
+					{
+						seenAt = used.getChangeSeenAt();
+						poll.changed(seenAt);
+					}
+
+					if (todo.isEmpty() && used.getUnreceivedRequests().isEmpty())
 					{
 						break;
 					}
-					todo.addAll(jsc.getUnreceivedRequests());
+					todo.addAll(used.getUnreceivedRequests());
 				}
 			}
 
@@ -199,29 +225,27 @@ public class Download
 				commit.setSubject("Cache version " + tag + (!beta.isEmpty() ? (" (" + beta + " beta)") : ""));
 				commit.finish(repo, branch);
 				commit.clear();
+			}
+
+			if (journal != null)
+			{
+				journal.clear();
+			}
 
+			if (!branch.isEmpty())
+			{
 				if (Repo.OSRS_CACHE.isHasOrigin() && Settings.getBool("git.push.allowed"))
 				{
-					log.info("Pushing");
-
 					try (Git git = new Git(repo))
 					{
-						List<RefSpec> specs = new ArrayList<>();
-						specs.add(new RefSpec(branch + ":" + branch));
-
-						specs.add(new RefSpec(git.tag()
+						Repo.OSRS_CACHE.queuePush(new RefSpec(branch + ":" + branch));
+						Repo.OSRS_CACHE.queuePush(new RefSpec(git.tag()
 							.setName(tag)
 							.setObjectId(GitUtil.resolve(repo, branch))
 							.call()
 							.getName()));
-
-						git.push()
-							.setRemote("origin")
-							.setRefSpecs(specs)
-							.setThin(true)
-							.setProgressMonitor(new TextProgressMonitor())
-							.call();
 					}
+					Repo.OSRS_CACHE.push();
 
 					String exec = Settings.get("dl.after_push_script");
 					if (!Strings.isNullOrEmpty(exec))
@@ -231,13 +255,39 @@ public class Download
 				}
 			}
 
+			if (seenAt != 0)
+			{
+				log.info("Finished {} {}ms after it was detected", tag, System.currentTimeMillis() - seenAt);
+			}
+
 			Runtime.getRuntime().gc();
 
 			if (branch.isEmpty())
 			{
 				// one shot download
+				if (jsc != null)
+				{
+					close(jsc);
+				}
 				break;
 			}
+
+			if (jsc != null)
+			{
+				jsc.resetChanges();
+			}
+		}
+	}
+
+	private static void close(JS5Client jsc)
+	{
+		try
+		{
+			jsc.close();
+		}
+		catch (Exception e)
+		{
+			log.warn("Error closing connection", e);
 		}
 	}
 }
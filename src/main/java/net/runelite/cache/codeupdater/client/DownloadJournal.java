@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.client;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An append only log of every JS5 response applied to a {@link net.runelite.cache.fs.Store}
+ * since it was last saved. Replaying it through {@link JS5Client#replay}
+ * rebuilds the unsaved index metadata and archive data, and the set of requests that
+ * were still outstanding, so an interrupted download can continue where it stopped.
+ */
+@Slf4j
+public class DownloadJournal implements Closeable
+{
+	private static final int MAGIC = 0x524C4A35; // RLJ5
+
+	public interface Handler
+	{
+		void accept(int index, int archive, byte[] data) throws IOException;
+	}
+
+	private final File file;
+
+	private boolean scanned;
+	private DataOutputStream out;
+
+	public DownloadJournal(File file)
+	{
+		this.file = file;
+	}
+
+	/**
+	 * Passes every complete record to the handler in the order they were written. A
+	 * partially written record at the end of the file is discarded.
+	 *
+	 * @return the number of records replayed
+	 */
+	public synchronized int replay(Handler handler) throws IOException
+	{
+		if (out != null)
+		{
+			throw new IllegalStateException("journal is already open for writing");
+		}
+
+		scanned = true;
+		if (!file.exists())
+		{
+			return 0;
+		}
+
+		long good = 0;
+		int count = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			if (in.readInt() != MAGIC)
+			{
+				log.warn("Discarding journal {} with bad header", file);
+			}
+			else
+			{
+				good = 4;
+				for (; ; )
+				{
+					int pid = in.readInt();
+					int len = in.readInt();
+					if (len < 0)
+					{
+						break;
+					}
+
+					byte[] data = new byte[len];
+					in.readFully(data);
+
+					CRC32 crc = new CRC32();
+					crc.update(data);
+					if (in.readInt() != (int) crc.getValue())
+					{
+						break;
+					}
+
+					handler.accept(pid >>> 16, pid & 0xFFFF, data);
+					good += 12 + len;
+					count++;
+				}
+			}
+		}
+		catch (EOFException e)
+		{
+			// torn write at the end of the journal
+		}
+
+		if (good != file.length())
+		{
+			log.info("Truncating journal {} from {} to {} bytes", file, file.length(), good);
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+			{
+				raf.setLength(good);
+			}
+		}
+
+		if (count > 0)
+		{
+			log.info("Replayed {} records from {}", count, file);
+		}
+		return count;
+	}
+
+	public synchronized void append(int index, int archive, byte[] data) throws IOException
+	{
+		if (out == null)
+		{
+			if (!scanned)
+			{
+				replay((i, a, d) ->
+				{
+				});
+			}
+
+			boolean fresh = file.length() == 0;
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+			if (fresh)
+			{
+				out.writeInt(MAGIC);
+			}
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(data);
+
+		out.writeInt(index << 16 | archive);
+		out.writeInt(data.length);
+		out.write(data);
+		out.writeInt((int) crc.getValue());
+		out.flush();
+	}
+
+	/**
+	 * Discards the journal. This should be called once the store it belongs to has been saved.
+	 */
+	public synchronized void clear() throws IOException
+	{
+		close();
+		if (file.exists() && !file.delete())
+		{
+			throw new IOException("unable to delete " + file);
+		}
+		scanned = true;
+	}
+
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if (out != null)
+		{
+			try
+			{
+				out.close();
+			}
+			finally
+			{
+				out = null;
+			}
+		}
+	}
+}
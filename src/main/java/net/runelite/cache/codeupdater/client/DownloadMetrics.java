@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.client;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Throughput and latency of {@link JS5Client} downloads. One instance is shared by every
+ * connection made from the same {@link JS5Client.Builder}, and can periodically write a
+ * snapshot to a file, as JSON if the file name ends in {@code .json}, otherwise as text.
+ */
+@Slf4j
+public class DownloadMetrics
+{
+	/**
+	 * upper bounds of the latency histogram buckets, in milliseconds
+	 */
+	private static final long[] BUCKETS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, Long.MAX_VALUE};
+
+	private static final Gson GSON = new GsonBuilder()
+		.disableHtmlEscaping()
+		.setPrettyPrinting()
+		.create();
+
+	private static final ScheduledExecutorService EXPORTER = Executors.newSingleThreadScheduledExecutor(
+		new ThreadFactoryBuilder()
+			.setNameFormat("js5-metrics")
+			.setDaemon(true)
+			.build());
+
+	private final long start = System.nanoTime();
+
+	private final AtomicLong bytes = new AtomicLong();
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong responses = new AtomicLong();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private final AtomicInteger connections = new AtomicInteger();
+
+	private final Map<Integer, Long> sentAt = new ConcurrentHashMap<>();
+	private final Map<Integer, Long> indexCompleteMs = new ConcurrentHashMap<>();
+
+	private final AtomicLongArray latency = new AtomicLongArray(BUCKETS.length);
+	private final AtomicLongArray ttfb = new AtomicLongArray(BUCKETS.length);
+	private final AtomicLong latencySumMs = new AtomicLong();
+	private final AtomicLong lastTtfbMs = new AtomicLong(-1);
+
+	// bytes and time of the previous snapshot, for the current rate
+	private long lastBytes;
+	private long lastSnapshot = start;
+
+	// where export writes to, or null
+	private File exportFile;
+	private ScheduledFuture<?> exporter;
+
+	/**
+	 * Writes a snapshot to {@code file} every {@code intervalMs} milliseconds, and when
+	 * {@link #finish} is called. Exporting to the file this is already exporting to does nothing.
+	 */
+	public synchronized void export(File file, long intervalMs)
+	{
+		if (file.equals(exportFile))
+		{
+			return;
+		}
+
+		if (exporter != null)
+		{
+			exporter.cancel(false);
+		}
+		exportFile = file;
+		exporter = EXPORTER.scheduleWithFixedDelay(this::writeExport, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Writes a final snapshot of a download that changed the cache to the export file, if there is one
+	 */
+	public void finish()
+	{
+		writeExport();
+	}
+
+	private void writeExport()
+	{
+		File file;
+		synchronized (this)
+		{
+			file = exportFile;
+		}
+		if (file == null)
+		{
+			return;
+		}
+
+		try
+		{
+			write(file);
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to write metrics to {}", file, e);
+		}
+	}
+
+	void connected()
+	{
+		connections.incrementAndGet();
+	}
+
+	void firstByte(long connectedAtNanos)
+	{
+		long ms = (System.nanoTime() - connectedAtNanos) / 1_000_000;
+		lastTtfbMs.set(ms);
+		ttfb.incrementAndGet(bucket(ms));
+	}
+
+	void requested(int pid)
+	{
+		requests.incrementAndGet();
+		sentAt.put(pid, System.nanoTime());
+	}
+
+	void received(int pid, int length)
+	{
+		responses.incrementAndGet();
+		bytes.addAndGet(length);
+
+		Long sent = sentAt.remove(pid);
+		if (sent != null)
+		{
+			long ms = (System.nanoTime() - sent) / 1_000_000;
+			latencySumMs.addAndGet(ms);
+			latency.incrementAndGet(bucket(ms));
+		}
+	}
+
+	void inFlight(int count)
+	{
+		inFlight.set(count);
+		maxInFlight.accumulateAndGet(count, Math::max);
+	}
+
+	void indexComplete(int index)
+	{
+		indexCompleteMs.putIfAbsent(index, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	private static int bucket(long ms)
+	{
+		for (int i = 0; ; i++)
+		{
+			if (ms <= BUCKETS[i])
+			{
+				return i;
+			}
+		}
+	}
+
+	/**
+	 * @return the current values, in an order that reads well in both output formats
+	 */
+	public synchronized Map<String, Object> snapshot()
+	{
+		long now = System.nanoTime();
+		long total = bytes.get();
+		double elapsed = (now - start) / 1e9;
+		double sinceLast = (now - lastSnapshot) / 1e9;
+
+		Map<String, Object> s = new LinkedHashMap<>();
+		s.put("uptime_seconds", elapsed);
+		s.put("bytes", total);
+		s.put("bytes_per_second", elapsed > 0 ? total / elapsed : 0);
+		s.put("bytes_per_second_current", sinceLast > 0 ? (total - lastBytes) / sinceLast : 0);
+		s.put("requests", requests.get());
+		s.put("responses", responses.get());
+		s.put("in_flight", inFlight.get());
+		s.put("in_flight_max", maxInFlight.get());
+		s.put("connections", connections.get());
+		s.put("reconnects", Math.max(0, connections.get() - 1));
+		s.put("ttfb_ms_last", lastTtfbMs.get());
+		s.put("ttfb_ms", histogram(ttfb));
+		s.put("latency_ms_sum", latencySumMs.get());
+		s.put("latency_ms", histogram(latency));
+		s.put("index_complete_ms", new TreeMap<>(indexCompleteMs));
+
+		lastBytes = total;
+		lastSnapshot = now;
+		return s;
+	}
+
+	private static Map<String, Long> histogram(AtomicLongArray counts)
+	{
+		// cumulative, like prometheus
+		Map<String, Long> h = new LinkedHashMap<>();
+		long sum = 0;
+		for (int i = 0; i < BUCKETS.length; i++)
+		{
+			sum += counts.get(i);
+			h.put(BUCKETS[i] == Long.MAX_VALUE ? "+Inf" : Long.toString(BUCKETS[i]), sum);
+		}
+		return h;
+	}
+
+	public synchronized void write(File file) throws IOException
+	{
+		Map<String, Object> snapshot = snapshot();
+		String out;
+		if (file.getName().endsWith(".json"))
+		{
+			out = GSON.toJson(snapshot);
+		}
+		else
+		{
+			StringBuilder sb = new StringBuilder();
+			for (Map.Entry<String, Object> e : snapshot.entrySet())
+			{
+				if (e.getValue() instanceof Map)
+				{
+					String label = "index_complete_ms".equals(e.getKey()) ? "index" : "le";
+					for (Map.Entry<?, ?> sub : ((Map<?, ?>) e.getValue()).entrySet())
+					{
+						sb.append(e.getKey()).append('{').append(label).append("=\"").append(sub.getKey()).append("\"} ")
+							.append(sub.getValue()).append('\n');
+					}
+				}
+				else
+				{
+					sb.append(e.getKey()).append(' ').append(e.getValue()).append('\n');
+				}
+			}
+			out = sb.toString();
+		}
+
+		File tmp = new File(file.getPath() + ".tmp");
+		Files.write(tmp.toPath(), out.getBytes(StandardCharsets.UTF_8));
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.client;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measures how long it takes to connect and complete a JS5 handshake with a set of hosts
+ */
+@Slf4j
+public class HostProber
+{
+	private static final int MAX_THREADS = 16;
+
+	@Value
+	public static class Probe
+	{
+		String hostname;
+		int port;
+
+		/**
+		 * handshake status, or -1 if the host could not be reached
+		 */
+		int status;
+
+		long connectNanos;
+		long handshakeNanos;
+
+		public boolean isReachable()
+		{
+			// 6 is a revision mismatch, which JS5Client can recover from
+			return status == 0 || status == 6;
+		}
+
+		public long getLatencyNanos()
+		{
+			return isReachable() ? connectNanos + handshakeNanos : Long.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * Probes every target at once, and returns them fastest first, with unreachable hosts last.
+	 * Targets should be unresolved so name lookups also happen in parallel.
+	 */
+	public static List<Probe> probe(List<InetSocketAddress> targets, int rev, int timeout)
+	{
+		if (targets.isEmpty())
+		{
+			return new ArrayList<>();
+		}
+
+		ExecutorService exec = Executors.newFixedThreadPool(Math.min(targets.size(), MAX_THREADS),
+			new ThreadFactoryBuilder()
+				.setNameFormat("host-probe-%d")
+				.setDaemon(true)
+				.build());
+		try
+		{
+			List<Future<Probe>> futures = new ArrayList<>(targets.size());
+			for (InetSocketAddress target : targets)
+			{
+				futures.add(exec.submit(() -> probe(target.getHostString(), target.getPort(), rev, timeout)));
+			}
+
+			List<Probe> probes = new ArrayList<>(targets.size());
+			for (Future<Probe> future : futures)
+			{
+				try
+				{
+					probes.add(future.get());
+				}
+				catch (ExecutionException e)
+				{
+					throw new RuntimeException(e.getCause());
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					throw new RuntimeException(e);
+				}
+			}
+
+			probes.sort(Comparator.comparingLong(Probe::getLatencyNanos));
+			return probes;
+		}
+		finally
+		{
+			exec.shutdownNow();
+		}
+	}
+
+	public static Probe probe(String hostname, int port, int rev, int timeout)
+	{
+		long start = System.nanoTime();
+		long connected = start;
+		try (Socket socket = new Socket())
+		{
+			socket.setSoTimeout(timeout);
+			socket.connect(new InetSocketAddress(hostname, port), timeout);
+			connected = System.nanoTime();
+
+			DataOutputStream w = new DataOutputStream(socket.getOutputStream());
+			w.writeByte(15);
+			w.writeInt(rev);
+			w.writeInt(0);
+			w.writeInt(0);
+			w.writeInt(0);
+			w.writeInt(0);
+			w.flush();
+
+			int status = new DataInputStream(socket.getInputStream()).read();
+			long done = System.nanoTime();
+
+			return new Probe(hostname, port, status, connected - start, done - connected);
+		}
+		catch (IOException e)
+		{
+			log.debug("Unable to probe {}:{}", hostname, port, e);
+			return new Probe(hostname, port, -1, connected - start, System.nanoTime() - connected);
+		}
+	}
+}
@@ -25,16 +25,32 @@
 package net.runelite.cache.codeupdater.client;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.codeupdater.Settings;
 
@@ -54,6 +70,13 @@ public class HostSupplier
 
 	private static final long HOST_EXPIRE = 5 * 60 * 1000;
 
+	private static final int PROBE_TIMEOUT = 2500;
+
+	private static final ExecutorService REFRESHER = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+		.setNameFormat("world-list-refresh")
+		.setDaemon(true)
+		.build());
+
 	private static final List<String> FALLBACK_WORLDS = ImmutableList.of(
 		"oldschool1.runescape.COM",
 		"oldschool2.runescape.COM",
@@ -67,20 +90,256 @@ public class HostSupplier
 
 	private final boolean useBeta;
 
+	/**
+	 * port and revision to probe candidate hosts with. Probing is disabled if the port is 0
+	 */
+	@Setter
+	private int probePort;
+
+	@Setter
+	private int probeRev;
+
 	private int randomWorld = 0;
 
+	private List<World> worlds = null;
+	private long worldsFetched = 0;
+	private boolean refreshing = false;
+	private boolean ranking = false;
+
 	private Queue<String> hosts = null;
 	private long lastHostUpdate = 0;
 
+	/**
+	 * Probes the first candidates concurrently on the refresh thread, then moves the reachable
+	 * ones to the front of the queue, fastest first. Hosts that could not be reached are dropped.
+	 * Until the probes finish, hosts are handed out in their unranked order.
+	 */
+	private void rankHostsAsync()
+	{
+		int count = Integer.parseInt(Settings.get("dl.probe"));
+		if (probePort == 0 || count <= 0 || hosts.isEmpty() || ranking)
+		{
+			return;
+		}
+
+		List<InetSocketAddress> candidates = hosts.stream()
+			.limit(count)
+			.map(host -> InetSocketAddress.createUnresolved(host, probePort))
+			.collect(Collectors.toList());
+		int rev = probeRev;
+
+		ranking = true;
+		REFRESHER.execute(() ->
+		{
+			List<HostProber.Probe> probes = null;
+			try
+			{
+				probes = HostProber.probe(candidates, rev, PROBE_TIMEOUT);
+			}
+			finally
+			{
+				synchronized (this)
+				{
+					ranking = false;
+					if (probes != null)
+					{
+						rankHosts(probes);
+					}
+				}
+			}
+		});
+	}
+
+	private void rankHosts(List<HostProber.Probe> probes)
+	{
+		// hosts handed out or replaced while probing are not brought back
+		Set<String> probed = probes.stream()
+			.map(HostProber.Probe::getHostname)
+			.collect(Collectors.toSet());
+		Queue<String> ranked = probes.stream()
+			.filter(HostProber.Probe::isReachable)
+			.map(HostProber.Probe::getHostname)
+			.filter(hosts::contains)
+			.collect(Collectors.toCollection(ArrayDeque::new));
+		int reachable = ranked.size();
+		hosts.stream()
+			.filter(host -> !probed.contains(host))
+			.forEach(ranked::add);
+		hosts = ranked;
+
+		log.info("Probed {} hosts, {} reachable, fastest: {}", probes.size(), reachable, probes.stream()
+			.filter(HostProber.Probe::isReachable)
+			.limit(3)
+			.map(p -> p.getHostname() + " (" + p.getLatencyNanos() / 1_000_000 + "ms)")
+			.collect(Collectors.joining(", ")));
+	}
+
 	public synchronized String getHost(boolean forceRefresh)
 	{
 		long now = System.currentTimeMillis();
-		if (!forceRefresh && lastHostUpdate > now - HOST_EXPIRE && !hosts.isEmpty())
+		if (!forceRefresh && lastHostUpdate > now - HOST_EXPIRE && hosts != null && !hosts.isEmpty())
 		{
 			return hosts.poll();
 		}
+
+		if (worlds == null)
+		{
+			loadCachedWorlds();
+		}
+
+		if (worlds == null)
+		{
+			byte[] list = fetchWorldList();
+			if (list != null)
+			{
+				setWorlds(list, now);
+			}
+		}
+		else if (forceRefresh || worldsFetched < now - HOST_EXPIRE)
+		{
+			refreshAsync();
+		}
+
+		if (worlds != null)
+		{
+			buildHosts();
+			lastHostUpdate = now;
+			if (!hosts.isEmpty())
+			{
+				return hosts.poll();
+			}
+		}
+
+		if (useBeta)
+		{
+			return null;
+		}
+
+		return FALLBACK_WORLDS.get(randomWorld++ % FALLBACK_WORLDS.size());
+	}
+
+	private void buildHosts()
+	{
 		int preferredLocationCode = Integer.parseInt(Settings.get("dl.location"));
-		ArrayList<World> worlds = new ArrayList<>();
+		List<World> worlds = new ArrayList<>(this.worlds);
+		worlds.sort(Comparator.comparing((World w) -> w.location == preferredLocationCode)
+			.reversed()
+			.thenComparing(w -> w.players));
+
+		hosts = new ArrayDeque<>();
+		for (World world : worlds)
+		{
+			if (((world.flags & FLAG_BETA) != 0) != useBeta)
+			{
+				continue;
+			}
+
+			if (world.location != preferredLocationCode && hosts.size() > 32)
+			{
+				break;
+			}
+			hosts.add(world.hostname);
+		}
+
+		rankHostsAsync();
+	}
+
+	private void setWorlds(byte[] list, long fetched)
+	{
+		worlds = parseWorlds(list);
+		worldsFetched = fetched;
+	}
+
+	private void refreshAsync()
+	{
+		if (refreshing)
+		{
+			return;
+		}
+
+		refreshing = true;
+		REFRESHER.execute(() ->
+		{
+			byte[] list = null;
+			try
+			{
+				list = fetchWorldList();
+			}
+			finally
+			{
+				synchronized (this)
+				{
+					refreshing = false;
+					if (list != null)
+					{
+						setWorlds(list, System.currentTimeMillis());
+						// rebuild the host queue with the new list on the next call
+						lastHostUpdate = 0;
+					}
+				}
+			}
+		});
+	}
+
+	private void loadCachedWorlds()
+	{
+		String cache = Settings.get("dl.world_cache");
+		if (cache.isEmpty())
+		{
+			return;
+		}
+
+		File file = new File(cache);
+		if (!file.exists())
+		{
+			return;
+		}
+
+		try (DataInputStream ds = new DataInputStream(new FileInputStream(file)))
+		{
+			long fetched = ds.readLong();
+			byte[] list = new byte[ds.readInt()];
+			ds.readFully(list);
+			setWorlds(list, fetched);
+			log.info("Loaded {} worlds from {}, fetched at {}", worlds.size(), file, new Date(fetched));
+		}
+		catch (Exception e)
+		{
+			log.warn("Unable to read world list cache {}", file, e);
+		}
+	}
+
+	private static void saveCachedWorlds(byte[] list, long fetched)
+	{
+		String cache = Settings.get("dl.world_cache");
+		if (cache.isEmpty())
+		{
+			return;
+		}
+
+		File file = new File(cache);
+		File tmp = new File(cache + ".tmp");
+		try
+		{
+			try (DataOutputStream ds = new DataOutputStream(new FileOutputStream(tmp)))
+			{
+				ds.writeLong(fetched);
+				ds.writeInt(list.length);
+				ds.write(list);
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to write world list cache {}", file, e);
+		}
+	}
+
+	/**
+	 * @return the body of the world list, or null if it could not be downloaded
+	 */
+	private static byte[] fetchWorldList()
+	{
 		for (int attempt = 0; attempt < 10; attempt++)
 		{
 			log.info("Querying worldlist for servers");
@@ -93,60 +352,17 @@ public class HostSupplier
 				urlConn.setRequestProperty("User-Agent", "RuneLite-Cache-Code-Autoupdater/1.0 (+" + Settings.get("git.commit.owner") + ")");
 				try (DataInputStream ds = new DataInputStream(urlConn.getInputStream()))
 				{
-					ds.readInt(); // len
-					int len = ds.readUnsignedShort();
-					if (len <= 0)
+					byte[] list = new byte[ds.readInt()];
+					ds.readFully(list);
+					if (parseWorlds(list).isEmpty())
 					{
 						log.info("Got no servers, trying again");
 						Thread.sleep(1000);
 						continue;
 					}
-					worlds.ensureCapacity(len);
-					for (int i = 0; i < len; i++)
-					{
-						World w = new World();
-						ds.readUnsignedShort(); // number
-						w.flags = ds.readInt();
-						StringBuilder sb = new StringBuilder();
-						for (; ; )
-						{
-							byte b = ds.readByte();
-							if (b == 0)
-							{
-								break;
-							}
-							sb.append((char) b);
-						}
-						w.hostname = sb.toString();
-						for (; ds.readByte() != 0; )
-						{
-							// description
-						}
-						w.location = ds.readByte();
-						w.players = ds.readUnsignedShort();
-						worlds.add(w);
-					}
 
-					worlds.sort(Comparator.comparing((World w) -> w.location == preferredLocationCode)
-						.reversed()
-						.thenComparing(w -> w.players));
-
-					hosts = new ArrayDeque<>();
-					for (World world : worlds)
-					{
-						if (((world.flags & FLAG_BETA) != 0) != useBeta)
-						{
-							continue;
-						}
-
-						if (world.location != preferredLocationCode && hosts.size() > 32)
-						{
-							break;
-						}
-						hosts.add(world.hostname);
-					}
-					lastHostUpdate = now;
-					return hosts.poll();
+					saveCachedWorlds(list, System.currentTimeMillis());
+					return list;
 				}
 			}
 			catch (MalformedURLException e)
@@ -159,11 +375,35 @@ public class HostSupplier
 			}
 		}
 
-		if (useBeta)
+		return null;
+	}
+
+	private static List<World> parseWorlds(byte[] list)
+	{
+		ByteBuffer buf = ByteBuffer.wrap(list);
+		int len = buf.getShort() & 0xFFFF;
+		List<World> worlds = new ArrayList<>(len);
+		for (int i = 0; i < len; i++)
 		{
-			return null;
+			World w = new World();
+			buf.getShort(); // number
+			w.flags = buf.getInt();
+			w.hostname = readString(buf);
+			readString(buf); // description
+			w.location = buf.get();
+			w.players = buf.getShort() & 0xFFFF;
+			worlds.add(w);
 		}
+		return worlds;
+	}
 
-		return FALLBACK_WORLDS.get(randomWorld++ % FALLBACK_WORLDS.size());
+	private static String readString(ByteBuffer buf)
+	{
+		StringBuilder sb = new StringBuilder();
+		for (byte b; (b = buf.get()) != 0; )
+		{
+			sb.append((char) b);
+		}
+		return sb.toString();
 	}
 }
@@ -25,11 +25,15 @@
 package net.runelite.cache.codeupdater.client;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.URI;
@@ -38,16 +42,32 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.SneakyThrows;
 import lombok.experimental.Accessors;
+import net.runelite.cache.IndexType;
 import net.runelite.cache.codeupdater.Settings;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Container;
@@ -66,8 +86,36 @@ public class JS5Client implements Closeable
 
 	public static final int DEFAULT_PORT = 43594;
 
+	/**
+	 * Indexes the updaters read, most important first. These are requested before any other index
+	 */
+	public static final List<IndexType> UPDATER_INDEXES = ImmutableList.of(
+		IndexType.CONFIGS,
+		IndexType.CLIENTSCRIPT,
+		IndexType.INTERFACES,
+		IndexType.GAMEVALS,
+		IndexType.DBTABLEINDEX,
+		IndexType.SPRITES,
+		IndexType.TEXTURES,
+		IndexType.MODELS
+	);
+
 	private static final int MAX_REV_BUMPS = 10;
 	private static final int MAX_OUT = 200;
+	private static final int MAX_CRC_FAILURES = 3;
+
+	private static final ExecutorService VERIFIER = Executors.newFixedThreadPool(
+		Runtime.getRuntime().availableProcessors(),
+		new ThreadFactoryBuilder()
+			.setNameFormat("js5-verify-%d")
+			.setDaemon(true)
+			.build());
+
+	private static final ExecutorService HANDSHAKER = Executors.newCachedThreadPool(
+		new ThreadFactoryBuilder()
+			.setNameFormat("js5-handshake-%d")
+			.setDaemon(true)
+			.build());
 
 	private final Logger log;
 
@@ -76,18 +124,83 @@ public class JS5Client implements Closeable
 	private final DataOutputStream w;
 	private final DataInputStream r;
 	private final Store store;
+	private final DownloadJournal journal;
+	private final SessionRecording.Writer recorder;
+
+	@Getter
+	private final DownloadMetrics metrics;
+	private final long connectedAt;
+	private boolean gotFirstByte;
+
+	private final List<Integer> priority;
+	private final boolean prefetch;
+
+	private final IntConsumer indexListener;
 
 	private final Set<Integer> out = new HashSet<>();
+	private final Queue<Verification> verifying = new ArrayDeque<>();
+	private final Map<Integer, Integer> crcFailures = new HashMap<>();
+
+	// requests that have been queued but not applied to the store, and their count per index
+	private final Set<Integer> incomplete = new HashSet<>();
+	private final Map<Integer, Integer> incompletePerIndex = new HashMap<>();
+	private final Set<Integer> completeIndexes = new HashSet<>();
 
 	@Getter
 	@Setter
-	protected Queue<Integer> toDownload = new ArrayDeque<>();
+	protected Queue<Integer> toDownload;
 
 	private boolean seenChange = false;
 
+	/**
+	 * when the first change since the last {@link #resetChanges()} was received, in epoch milliseconds
+	 */
+	@Getter
+	private long changeSeenAt;
+
+	@Getter
+	private int verifiedArchives;
+
+	@Getter
+	private int corruptArchives;
+
 	@Getter
 	private final int rev;
 
+	@RequiredArgsConstructor
+	private static class Verification
+	{
+		final int index;
+		final int archive;
+		final byte[] data;
+		final Future<Boolean> matches;
+	}
+
+	@RequiredArgsConstructor
+	private static class Handshake
+	{
+		final int rev;
+		final int status;
+		final Socket socket;
+		final DataOutputStream w;
+		final DataInputStream r;
+
+		void close()
+		{
+			if (socket != null)
+			{
+				try
+				{
+					socket.close();
+				}
+				catch (IOException e)
+				{
+					// we are throwing this connection away anyway
+				}
+			}
+		}
+	}
+
 	@Accessors(fluent = true, chain = true)
 	@Setter
 	@Getter
@@ -101,6 +214,37 @@ public class JS5Client implements Closeable
 		private int rev;
 		private boolean wasBumped;
 
+		/**
+		 * number of revisions to try at once after a revision mismatch. 1 tries them one at a time
+		 */
+		private int revProbes = 1;
+
+		/**
+		 * directory to record each session into, see {@link SessionRecording}
+		 */
+		private File recordDir;
+
+		private DownloadMetrics metrics = new DownloadMetrics();
+
+		private DownloadJournal journal;
+
+		/**
+		 * index ids to download first, in order
+		 */
+		private List<Integer> priority = UPDATER_INDEXES.stream()
+			.map(IndexType::getNumber)
+			.collect(Collectors.toList());
+
+		/**
+		 * request indexes that are not in {@link #priority} with the prefetch opcode
+		 */
+		private boolean prefetch;
+
+		/**
+		 * called with an index id once it and all of its archives have been applied to the store
+		 */
+		private IntConsumer indexListener;
+
 		public Builder fromConfig() throws IOException
 		{
 			String hostname = Settings.get("js5.host");
@@ -127,9 +271,34 @@ public class JS5Client implements Closeable
 				this.rev = Integer.parseInt(rev);
 			}
 
+			prefetch = Settings.getBool("js5.prefetch");
+			revProbes = Integer.parseInt(Settings.get("js5.rev_probes"));
+
+			String recordDir = Settings.get("js5.record_dir");
+			if (!Strings.isNullOrEmpty(recordDir))
+			{
+				this.recordDir = new File(recordDir);
+			}
+
+			String metricsFile = Settings.get("js5.metrics_file");
+			if (!Strings.isNullOrEmpty(metricsFile))
+			{
+				metrics.export(new File(metricsFile), Long.parseLong(Settings.get("js5.metrics_interval")));
+			}
+
 			return this;
 		}
 
+		/**
+		 * Creates a request queue that orders requests by {@link #priority}
+		 */
+		public Queue<Integer> newQueue()
+		{
+			List<Integer> priority = ImmutableList.copyOf(this.priority);
+			return new PriorityQueue<>(Comparator.comparingInt((Integer pid) -> requestRank(priority, pid))
+				.thenComparingInt(pid -> pid));
+		}
+
 		@SneakyThrows
 		public Builder fillFromJavConfig(String javConfig) throws IOException
 		{
@@ -184,27 +353,76 @@ public class JS5Client implements Closeable
 	public JS5Client(Builder b) throws IOException
 	{
 		this.store = b.store;
+		this.journal = b.journal;
+		this.priority = ImmutableList.copyOf(b.priority);
+		this.prefetch = b.prefetch;
+		this.indexListener = b.indexListener;
+		this.toDownload = b.newQueue();
 		this.hostname = b.hostname;
 		this.log = LoggerFactory.getLogger(toString());
 
-		int rev = b.rev;
+		Handshake hs = handshake(hostname, b.port, b.rev);
+		for (int i = 0; hs.status == 6 && i < MAX_REV_BUMPS && !b.wasBumped; )
+		{
+			hs.close();
+			int count = Math.max(1, Math.min(b.revProbes, MAX_REV_BUMPS - i));
+			if (count == 1)
+			{
+				log.info("Got rev mismatch, bumping to {}", hs.rev + 1);
+				hs = handshake(hostname, b.port, hs.rev + 1);
+			}
+			else
+			{
+				log.info("Got rev mismatch, trying {} through {}", hs.rev + 1, hs.rev + count);
+				hs = handshakeAny(hostname, b.port, hs.rev + 1, count);
+			}
+			i += count;
+		}
+
+		if (hs.status != 0)
+		{
+			hs.close();
+			throw new IOException("Handshake error " + hs.status);
+		}
+
+		this.socket = hs.socket;
+		this.w = hs.w;
+		this.r = hs.r;
+		this.rev = hs.rev;
+
+		this.metrics = b.metrics;
+		this.connectedAt = System.nanoTime();
+		metrics.connected();
+
+		if (b.recordDir != null)
+		{
+			b.recordDir.mkdirs();
+			File file = new File(b.recordDir, System.currentTimeMillis() + "-rev" + rev + ".js5session");
+			recorder = new SessionRecording.Writer(file, rev);
+			log.info("Recording session to {}", file);
+		}
+		else
+		{
+			recorder = null;
+		}
 
-		Socket socket;
-		DataOutputStream w;
-		DataInputStream r;
+		log.info("Connected with rev {}", rev);
+	}
 
-		for (int i = 0; ; i++)
+	private static Handshake handshake(String hostname, int port, int rev) throws IOException
+	{
+		Socket socket = new Socket();
+		try
 		{
-			socket = new Socket();
 			socket.setSoTimeout(2500);
 			socket.setReceiveBufferSize(0xFFFF);
 			socket.setSendBufferSize(0xFFFF);
 			socket.setTcpNoDelay(false);
 
-			socket.connect(new InetSocketAddress(hostname, b.port), 2500);
+			socket.connect(new InetSocketAddress(hostname, port), 2500);
 
-			w = new DataOutputStream(socket.getOutputStream());
-			r = new DataInputStream(socket.getInputStream());
+			DataOutputStream w = new DataOutputStream(socket.getOutputStream());
+			DataInputStream r = new DataInputStream(socket.getInputStream());
 
 			w.writeByte(15);
 			w.writeInt(rev);
@@ -214,33 +432,239 @@ public class JS5Client implements Closeable
 			w.writeInt(0);
 			w.flush();
 
-			int status = r.read();
-			if (status == 0)
+			return new Handshake(rev, r.read(), socket, w, r);
+		}
+		catch (IOException e)
+		{
+			socket.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Handshakes with {@code count} revisions starting at {@code first} concurrently, and returns
+	 * the first to be accepted. Every other connection is closed. If none are accepted the result
+	 * has no connection, and the revision and status of the highest mismatch, so bumping can continue
+	 */
+	private static Handshake handshakeAny(String hostname, int port, int first, int count) throws IOException
+	{
+		CompletableFuture<Handshake> winner = new CompletableFuture<>();
+		List<CompletableFuture<Handshake>> attempts = new ArrayList<>();
+		List<CompletableFuture<Void>> settled = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+		{
+			int rev = first + i;
+			CompletableFuture<Handshake> attempt = CompletableFuture.supplyAsync(() ->
 			{
-				break;
+				try
+				{
+					return handshake(hostname, port, rev);
+				}
+				catch (IOException e)
+				{
+					throw new CompletionException(e);
+				}
+			}, HANDSHAKER);
+			settled.add(attempt.thenAccept(hs ->
+			{
+				if (hs.status != 0 || !winner.complete(hs))
+				{
+					hs.close();
+				}
+			}));
+			attempts.add(attempt);
+		}
+
+		CompletableFuture.allOf(settled.toArray(new CompletableFuture[0]))
+			.whenComplete((v, e) -> winner.complete(null));
+
+		Handshake hs;
+		try
+		{
+			hs = winner.get();
+		}
+		catch (InterruptedException e)
+		{
+			winner.complete(null);
+			throw new InterruptedIOException();
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException(e);
+		}
+
+		if (hs != null)
+		{
+			return hs;
+		}
+
+		// nothing was accepted; every attempt has completed by now
+		Handshake mismatch = null;
+		IOException error = null;
+		for (CompletableFuture<Handshake> attempt : attempts)
+		{
+			try
+			{
+				Handshake h = attempt.join();
+				if (mismatch == null || h.status == 6)
+				{
+					mismatch = new Handshake(h.rev, h.status, null, null, null);
+				}
+			}
+			catch (CompletionException e)
+			{
+				if (error == null)
+				{
+					Throwable cause = e.getCause();
+					error = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+				}
 			}
+		}
 
-			if (status == 6 && i < MAX_REV_BUMPS && !b.wasBumped)
+		if (mismatch == null)
+		{
+			throw error;
+		}
+		return mismatch;
+	}
+
+	private JS5Client(Store store, Queue<Integer> toDownload)
+	{
+		this.store = store;
+		this.journal = null;
+		this.recorder = null;
+		this.metrics = new DownloadMetrics();
+		this.connectedAt = 0;
+		this.priority = ImmutableList.of();
+		this.prefetch = false;
+		this.indexListener = null;
+		this.hostname = "journal";
+		this.log = LoggerFactory.getLogger(toString());
+		this.socket = null;
+		this.w = null;
+		this.r = null;
+		this.rev = 0;
+		this.toDownload = toDownload;
+	}
+
+	/**
+	 * Applies every response recorded in the journal to the store, without connecting
+	 * to a server. Requests caused by those responses that were never answered are
+	 * left in {@code toDownload}. The root index is always requested again, since the
+	 * server may have updated since the journal was written.
+	 *
+	 * @return if the journal changed the store
+	 */
+	public static boolean replay(Store store, DownloadJournal journal, Queue<Integer> toDownload) throws IOException
+	{
+		Set<Integer> pending = new LinkedHashSet<>(toDownload);
+		JS5Client replayer = new JS5Client(store, new ArrayDeque<>());
+
+		journal.replay((index, archive, data) ->
+		{
+			int pid = index << 16 | archive;
+			if (pid != 0xFF00FF)
 			{
-				rev++;
-				log.info("Got rev mismatch, bumping to {}", rev);
-				continue;
+				pending.remove(pid);
 			}
+			replayer.handleDownload(index, archive, data);
+			pending.addAll(replayer.toDownload);
+			replayer.toDownload.clear();
+		});
+
+		toDownload.clear();
+		toDownload.addAll(pending);
+		return replayer.seenChange;
+	}
 
-			throw new IOException("Handshake error " + status);
+	private static int requestRank(List<Integer> priority, int pid)
+	{
+		int index = pid >>> 16;
+		if (index == 255)
+		{
+			// metadata comes first since it chains the requests for everything else
+			int archive = pid & 0xFFFF;
+			return archive == 255 ? 0 : 1 + indexRank(priority, archive);
 		}
 
-		this.socket = socket;
-		this.w = w;
-		this.r = r;
-		this.rev = rev;
+		return priority.size() + 2 + indexRank(priority, index);
+	}
 
-		log.info("Connected with rev {}", rev);
+	private static int indexRank(List<Integer> priority, int index)
+	{
+		int rank = priority.indexOf(index);
+		return rank == -1 ? priority.size() : rank;
 	}
 
 	public void enqueueDownload(int index, int archive)
 	{
-		toDownload.add(index << 16 | archive);
+		int pid = index << 16 | archive;
+		toDownload.add(pid);
+		track(pid);
+	}
+
+	private static int owningIndex(int pid)
+	{
+		int index = pid >>> 16;
+		return index == 255 ? pid & 0xFFFF : index;
+	}
+
+	private void track(int pid)
+	{
+		if (incomplete.add(pid))
+		{
+			incompletePerIndex.merge(owningIndex(pid), 1, Integer::sum);
+		}
+	}
+
+	private void untrack(int pid)
+	{
+		if (!incomplete.remove(pid))
+		{
+			return;
+		}
+
+		int index = owningIndex(pid);
+		if (incompletePerIndex.merge(index, -1, Integer::sum) <= 0)
+		{
+			incompletePerIndex.remove(index);
+		}
+
+		if (index == 255)
+		{
+			checkComplete();
+		}
+		else
+		{
+			checkComplete(index);
+		}
+	}
+
+	private void checkComplete()
+	{
+		for (Index idx : store.getIndexes())
+		{
+			checkComplete(idx.getId());
+		}
+	}
+
+	private void checkComplete(int index)
+	{
+		// until we have the root we don't know which indexes will change
+		if (incomplete.contains(255 << 16 | 255)
+			|| incompletePerIndex.containsKey(index)
+			|| store.findIndex(index) == null
+			|| !completeIndexes.add(index))
+		{
+			return;
+		}
+
+		log.info("Index {} is complete", index);
+		metrics.indexComplete(index);
+		if (indexListener != null)
+		{
+			indexListener.accept(index);
+		}
 	}
 
 	public void enqueueRoot()
@@ -266,6 +690,36 @@ public class JS5Client implements Closeable
 	}
 
 	public void process() throws IOException
+	{
+		for (int pid : toDownload)
+		{
+			track(pid);
+		}
+		checkComplete();
+
+		for (; ; )
+		{
+			processRequests();
+
+			// archives that fail verification are requeued, so we have to wait for all of them
+			// to finish before we know if we are done
+			drainVerified(true);
+			if (toDownload.isEmpty())
+			{
+				break;
+			}
+		}
+
+		checkComplete();
+
+		// polls that find nothing new leave the export to its schedule
+		if (seenChange)
+		{
+			metrics.finish();
+		}
+	}
+
+	private void processRequests() throws IOException
 	{
 		for (boolean run = true; run; )
 		{
@@ -286,12 +740,20 @@ public class JS5Client implements Closeable
 				}
 				run = true;
 
-				w.writeByte(1);
+				boolean urgent = !prefetch || pid >>> 16 == 255 || priority.contains(pid >>> 16);
+				w.writeByte(urgent ? 1 : 0);
 				write24(pid);
 				out.add(pid);
+
+				metrics.requested(pid);
+				if (recorder != null)
+				{
+					recorder.request(urgent, pid);
+				}
 			}
 
 			w.flush();
+			metrics.inFlight(out.size());
 
 			for (; out.size() > 0; )
 			{
@@ -301,6 +763,11 @@ public class JS5Client implements Closeable
 				}
 
 				int index = r.readUnsignedByte();
+				if (!gotFirstByte)
+				{
+					gotFirstByte = true;
+					metrics.firstByte(connectedAt);
+				}
 				int archive = r.readUnsignedShort();
 
 				byte compressionType = r.readByte();
@@ -346,12 +813,111 @@ public class JS5Client implements Closeable
 
 				out.remove(index << 16 | archive);
 				skip = false;
+				metrics.received(index << 16 | archive, buffer.length);
+				metrics.inFlight(out.size());
 
-				handleDownload(index, archive, buffer);
+				if (recorder != null)
+				{
+					recorder.response(index << 16 | archive, buffer);
+				}
+
+				verify(index, archive, buffer);
+				drainVerified(false);
 			}
 		}
 	}
 
+	private void verify(int indexID, int archiveID, byte[] compressed) throws IOException
+	{
+		if (indexID == 255)
+		{
+			// index tables are checked inline since they queue more requests
+			Index idx = archiveID == 255 ? null : store.findIndex(archiveID);
+			if (idx == null)
+			{
+				apply(indexID, archiveID, compressed);
+				return;
+			}
+
+			verified(indexID, archiveID, compressed, crc(compressed) == idx.getCrc());
+			return;
+		}
+
+		Index idx = store.findIndex(indexID);
+		Archive ar = idx == null ? null : idx.getArchive(archiveID);
+		if (ar == null)
+		{
+			apply(indexID, archiveID, compressed);
+			return;
+		}
+
+		int expected = ar.getCrc();
+		verifying.add(new Verification(indexID, archiveID, compressed,
+			VERIFIER.submit(() -> crc(compressed) == expected)));
+	}
+
+	private void drainVerified(boolean wait) throws IOException
+	{
+		for (Verification v; (v = verifying.peek()) != null; )
+		{
+			if (!wait && !v.matches.isDone())
+			{
+				break;
+			}
+
+			boolean matches;
+			try
+			{
+				matches = v.matches.get();
+			}
+			catch (InterruptedException | ExecutionException e)
+			{
+				throw new IOException(e);
+			}
+
+			verifying.poll();
+			verified(v.index, v.archive, v.data, matches);
+		}
+	}
+
+	private void verified(int indexID, int archiveID, byte[] compressed, boolean matches) throws IOException
+	{
+		if (matches)
+		{
+			verifiedArchives++;
+			apply(indexID, archiveID, compressed);
+			return;
+		}
+
+		corruptArchives++;
+		int pid = indexID << 16 | archiveID;
+		int failures = crcFailures.merge(pid, 1, Integer::sum);
+		log.warn("Got {}/{} with a bad crc ({} failures)", indexID, archiveID, failures);
+		toDownload.add(pid);
+
+		if (failures >= MAX_CRC_FAILURES)
+		{
+			throw new IOException("archive " + indexID + "/" + archiveID + " failed crc check " + failures + " times");
+		}
+	}
+
+	private void apply(int indexID, int archiveID, byte[] compressed) throws IOException
+	{
+		handleDownload(indexID, archiveID, compressed);
+		if (journal != null)
+		{
+			journal.append(indexID, archiveID, compressed);
+		}
+		untrack(indexID << 16 | archiveID);
+	}
+
+	private static int crc(byte[] data)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		return (int) crc.getValue();
+	}
+
 	protected void handleDownload(int indexID, int archiveID, byte[] compressed) throws IOException
 	{
 		if (indexID == 255)
@@ -382,7 +948,7 @@ public class JS5Client implements Closeable
 							continue;
 						}
 					}
-					seenChange = true;
+					markChanged();
 					idx.setCrc(crc);
 					idx.setRevision(rev);
 
@@ -397,8 +963,6 @@ public class JS5Client implements Closeable
 				idx.setProtocol(idxd.getProtocol());
 				idx.setNamed(idxd.isNamed());
 				idx.setSized(idxd.isSized());
-				assert con.crc == idx.getCrc();
-				assert con.revision == idx.getRevision();
 
 				Set<Integer> archiveIDs = new HashSet<>();
 
@@ -421,7 +985,7 @@ public class JS5Client implements Closeable
 						}
 					}
 
-					seenChange = true;
+					markChanged();
 
 					ar.setRevision(ard.getRevision());
 					ar.setCrc(ard.getCrc());
@@ -438,14 +1002,14 @@ public class JS5Client implements Closeable
 					.filter(ar -> !archiveIDs.contains(ar.getArchiveId()))
 					.collect(Collectors.toList()))
 				{
-					seenChange = true;
+					markChanged();
 					idx.removeArchive(remove);
 				}
 			}
 		}
 		else
 		{
-			seenChange = true;
+			markChanged();
 			Index idx = store.findIndex(indexID);
 			Archive ar = idx.getArchive(archiveID);
 			store.getStorage().saveArchive(ar, compressed);
@@ -462,9 +1026,35 @@ public class JS5Client implements Closeable
 		return seenChange;
 	}
 
+	private void markChanged()
+	{
+		if (!seenChange)
+		{
+			seenChange = true;
+			changeSeenAt = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Forgets that changes were seen, so the connection can be reused to watch for the next update
+	 */
+	public void resetChanges()
+	{
+		seenChange = false;
+		changeSeenAt = 0;
+		completeIndexes.clear();
+		crcFailures.clear();
+	}
+
 	public Set<Integer> getUnreceivedRequests()
 	{
-		return Collections.unmodifiableSet(out);
+		// responses that were not verified yet have not been applied to the store
+		Set<Integer> unreceived = new HashSet<>(out);
+		for (Verification v : verifying)
+		{
+			unreceived.add(v.index << 16 | v.archive);
+		}
+		return unreceived;
 	}
 
 	private void write24(int value) throws IOException
@@ -495,7 +1085,17 @@ public class JS5Client implements Closeable
 				}
 				finally
 				{
-					socket.close();
+					try
+					{
+						socket.close();
+					}
+					finally
+					{
+						if (recorder != null)
+						{
+							recorder.close();
+						}
+					}
 				}
 			}
 		}
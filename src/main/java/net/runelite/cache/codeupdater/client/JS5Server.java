@@ -0,0 +1,500 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.client;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.CompressionType;
+
+/**
+ * A local JS5 server that serves the contents of a {@link Store}, or replays a
+ * {@link SessionRecording}, so {@link JS5Client} and the things built on it can be
+ * exercised without the live servers.
+ */
+@Slf4j
+public class JS5Server implements Closeable
+{
+	private static final int BLOCK_SIZE = 512;
+
+	@Accessors(fluent = true, chain = true)
+	@Setter
+	@Getter
+	public static class Builder
+	{
+		private Store store;
+
+		/**
+		 * serve the responses of a recorded session instead of {@link #store}, each after the
+		 * latency it had when it was recorded. The revision defaults to the recorded one
+		 */
+		private SessionRecording recording;
+
+		/**
+		 * when replaying, wait for the recorded latency before each response, instead of {@link #latency}
+		 */
+		private boolean recordedLatency = true;
+
+		private int port;
+		private int rev;
+
+		/**
+		 * milliseconds between receiving a request and starting its response
+		 */
+		private int latency;
+
+		/**
+		 * bytes per second per connection, or 0 for unlimited
+		 */
+		private long bandwidth;
+
+		/**
+		 * chance of flipping a byte in the payload of a response
+		 */
+		private double corruptChance;
+
+		/**
+		 * chance of dropping the connection halfway through a response
+		 */
+		private double disconnectChance;
+
+		private long seed;
+	}
+
+	@RequiredArgsConstructor
+	private static class Request
+	{
+		final boolean urgent;
+		final long seq;
+		final long receivedAt;
+		final int pid;
+	}
+
+	private final Builder config;
+	private final ServerSocket server;
+	private final Random random;
+
+	private final Map<Integer, byte[]> indexTables = new HashMap<>();
+	private final Map<Integer, AtomicInteger> replayed = new ConcurrentHashMap<>();
+	private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+	private final AtomicInteger connections = new AtomicInteger();
+	private final AtomicLong responses = new AtomicLong();
+	private final AtomicLong bytesSent = new AtomicLong();
+
+	public JS5Server(Builder b) throws IOException
+	{
+		this.config = b;
+		this.random = new Random(b.seed);
+
+		if (b.recording != null)
+		{
+			if (b.rev == 0)
+			{
+				b.rev = b.recording.getRev();
+			}
+		}
+		else
+		{
+			buildIndexTables();
+		}
+
+		server = new ServerSocket(b.port, 50, InetAddress.getLoopbackAddress());
+		Thread acceptor = new Thread(this::accept, "js5-server-accept");
+		acceptor.setDaemon(true);
+		acceptor.start();
+
+		log.debug("Listening on {} with rev {}", getPort(), b.rev);
+	}
+
+	private void buildIndexTables()
+	{
+		int maxIndex = -1;
+		for (Index idx : config.store.getIndexes())
+		{
+			maxIndex = Math.max(maxIndex, idx.getId());
+		}
+
+		ByteBuffer root = ByteBuffer.allocate((maxIndex + 1) * 8);
+		for (Index idx : config.store.getIndexes())
+		{
+			byte[] table = container(idx.toIndexData().writeIndexData());
+			indexTables.put(255 << 16 | idx.getId(), table);
+
+			root.putInt(idx.getId() * 8, crc(table));
+			root.putInt(idx.getId() * 8 + 4, idx.getRevision());
+		}
+		indexTables.put(255 << 16 | 255, container(root.array()));
+	}
+
+	public int getPort()
+	{
+		return server.getLocalPort();
+	}
+
+	public int getConnections()
+	{
+		return connections.get();
+	}
+
+	public long getResponses()
+	{
+		return responses.get();
+	}
+
+	public long getBytesSent()
+	{
+		return bytesSent.get();
+	}
+
+	private void accept()
+	{
+		for (; !server.isClosed(); )
+		{
+			Socket socket;
+			try
+			{
+				socket = server.accept();
+			}
+			catch (IOException e)
+			{
+				if (!server.isClosed())
+				{
+					log.warn("Error accepting connection", e);
+				}
+				return;
+			}
+
+			connections.incrementAndGet();
+			clients.add(socket);
+			Thread t = new Thread(() -> serve(socket), "js5-server-" + socket.getPort());
+			t.setDaemon(true);
+			t.start();
+		}
+	}
+
+	private void serve(Socket socket)
+	{
+		try (socket)
+		{
+			DataInputStream r = new DataInputStream(socket.getInputStream());
+			DataOutputStream w = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+			if (r.readUnsignedByte() != 15)
+			{
+				return;
+			}
+
+			int rev = r.readInt();
+			r.readFully(new byte[16]);
+
+			if (rev != config.rev)
+			{
+				w.writeByte(6);
+				w.flush();
+				return;
+			}
+
+			w.writeByte(0);
+			w.flush();
+
+			PriorityBlockingQueue<Request> requests = new PriorityBlockingQueue<>(64,
+				Comparator.comparing((Request req) -> !req.urgent)
+					.thenComparingLong(req -> req.seq));
+
+			Thread writer = new Thread(() -> respond(socket, w, requests), Thread.currentThread().getName() + "-w");
+			writer.setDaemon(true);
+			writer.start();
+
+			try
+			{
+				for (long seq = 0; ; seq++)
+				{
+					int opcode = r.readUnsignedByte();
+					int pid = r.readUnsignedByte() << 16 | r.readUnsignedShort();
+					if (opcode == 0 || opcode == 1)
+					{
+						requests.add(new Request(opcode == 1, seq, System.nanoTime(), pid));
+					}
+				}
+			}
+			finally
+			{
+				writer.interrupt();
+			}
+		}
+		catch (EOFException | SocketException e)
+		{
+			// client went away
+		}
+		catch (IOException e)
+		{
+			log.warn("Error serving connection", e);
+		}
+		finally
+		{
+			clients.remove(socket);
+		}
+	}
+
+	private void respond(Socket socket, OutputStream w, PriorityBlockingQueue<Request> requests)
+	{
+		long start = System.nanoTime();
+		long sent = 0;
+		try
+		{
+			for (; ; )
+			{
+				Request req = requests.take();
+
+				long latency = config.latency * 1_000_000L;
+				byte[] container;
+				if (config.recording != null)
+				{
+					SessionRecording.Response recorded = replay(req.pid);
+					container = recorded == null ? null : recorded.getData();
+					if (recorded != null && config.recordedLatency)
+					{
+						latency = recorded.getLatencyNanos();
+					}
+				}
+				else
+				{
+					container = load(req.pid);
+				}
+
+				long wait = req.receivedAt + latency - System.nanoTime();
+				if (wait > 0)
+				{
+					Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+				}
+
+				if (container == null)
+				{
+					log.warn("Request for missing archive {}/{}", req.pid >>> 16, req.pid & 0xFFFF);
+					continue;
+				}
+
+				byte[] response = frame(req.pid, container);
+
+				int len = response.length;
+				boolean disconnect = config.disconnectChance > 0 && random.nextDouble() < config.disconnectChance;
+				if (disconnect)
+				{
+					len /= 2;
+				}
+
+				for (int off = 0; off < len; )
+				{
+					int n = Math.min(len - off, BLOCK_SIZE);
+					w.write(response, off, n);
+					off += n;
+					sent += n;
+					bytesSent.addAndGet(n);
+
+					if (config.bandwidth > 0)
+					{
+						long ahead = sent * 1_000_000_000L / config.bandwidth - (System.nanoTime() - start);
+						if (ahead > 0)
+						{
+							w.flush();
+							Thread.sleep(ahead / 1_000_000L, (int) (ahead % 1_000_000L));
+						}
+					}
+				}
+
+				if (disconnect)
+				{
+					w.flush();
+					socket.close();
+					return;
+				}
+
+				responses.incrementAndGet();
+				if (requests.isEmpty())
+				{
+					w.flush();
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			// connection closed
+		}
+		catch (IOException e)
+		{
+			if (!socket.isClosed())
+			{
+				log.warn("Error writing response", e);
+			}
+		}
+	}
+
+	private byte[] frame(int pid, byte[] container)
+	{
+		// the revision trailer is not sent over js5
+		int len = 5 + ByteBuffer.wrap(container, 1, 4).getInt();
+		if (container[0] != CompressionType.NONE)
+		{
+			len += 4;
+		}
+
+		byte[] data = new byte[len];
+		System.arraycopy(container, 0, data, 0, len);
+
+		if (pid != (255 << 16 | 255) && len > 9 && config.corruptChance > 0 && random.nextDouble() < config.corruptChance)
+		{
+			data[9 + random.nextInt(len - 9)] ^= 0x55;
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(len + 3 + len / BLOCK_SIZE + 1);
+		out.write(pid >>> 16);
+		out.write(pid >>> 8);
+		out.write(pid);
+
+		int pos = 3;
+		for (int off = 0; off < len; )
+		{
+			if (pos == BLOCK_SIZE)
+			{
+				out.write(0xFF);
+				pos = 1;
+			}
+
+			int n = Math.min(BLOCK_SIZE - pos, len - off);
+			out.write(data, off, n);
+			off += n;
+			pos += n;
+		}
+
+		return out.toByteArray();
+	}
+
+	private byte[] load(int pid) throws IOException
+	{
+		int indexID = pid >>> 16;
+		int archiveID = pid & 0xFFFF;
+		if (indexID == 255)
+		{
+			return indexTables.get(pid);
+		}
+
+		synchronized (config.store)
+		{
+			Index idx = config.store.findIndex(indexID);
+			Archive ar = idx == null ? null : idx.getArchive(archiveID);
+			if (ar == null)
+			{
+				return null;
+			}
+
+			return config.store.getStorage().loadArchive(ar);
+		}
+	}
+
+	/**
+	 * @return the recorded response to the nth request for this id, or the last one if it
+	 * was requested more times than it was recorded
+	 */
+	private SessionRecording.Response replay(int pid)
+	{
+		List<SessionRecording.Response> responses = config.recording.getResponses(pid);
+		if (responses.isEmpty())
+		{
+			return null;
+		}
+
+		int n = replayed.computeIfAbsent(pid, k -> new AtomicInteger()).getAndIncrement();
+		return responses.get(Math.min(n, responses.size() - 1));
+	}
+
+	private static byte[] container(byte[] data)
+	{
+		ByteBuffer buf = ByteBuffer.allocate(data.length + 5);
+		buf.put((byte) CompressionType.NONE);
+		buf.putInt(data.length);
+		buf.put(data);
+		return buf.array();
+	}
+
+	private static int crc(byte[] data)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		return (int) crc.getValue();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			server.close();
+		}
+		finally
+		{
+			for (Socket client : clients)
+			{
+				try
+				{
+					client.close();
+				}
+				catch (IOException e)
+				{
+					log.debug("Error closing client", e);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.client;
+
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.cache.codeupdater.Settings;
+
+/**
+ * Decides how long to wait between polls of the root index. The interval starts at the
+ * minimum and grows each time the root is unchanged, up to the maximum. Seeing a change
+ * drops it back to the minimum, since hotfixes tend to follow updates closely. Every
+ * wait is jittered so several watchers do not poll in lockstep.
+ */
+@Slf4j
+public class PollSchedule
+{
+	private final long min;
+	private final long max;
+	private final double backoff;
+	private final double jitter;
+	private final Random random = new Random();
+
+	private long interval;
+
+	// when we last got a root that was unchanged, in epoch milliseconds
+	private long lastUnchanged;
+
+	public PollSchedule(long min, long max, double backoff, double jitter)
+	{
+		this.min = min;
+		this.max = Math.max(min, max);
+		this.backoff = backoff;
+		this.jitter = jitter;
+		this.interval = min;
+	}
+
+	public static PollSchedule fromConfig()
+	{
+		return new PollSchedule(
+			Long.parseLong(Settings.get("dl.poll.min")),
+			Long.parseLong(Settings.get("dl.poll.max")),
+			Double.parseDouble(Settings.get("dl.poll.backoff")),
+			Double.parseDouble(Settings.get("dl.poll.jitter")));
+	}
+
+	/**
+	 * @return how long to wait before the next poll, in milliseconds
+	 */
+	public long nextDelay()
+	{
+		long delay = interval + (long) (interval * jitter * (random.nextDouble() * 2 - 1));
+		interval = Math.min(max, (long) Math.ceil(interval * backoff));
+		return Math.max(0, delay);
+	}
+
+	/**
+	 * Records a poll that returned the same root as before
+	 */
+	public void unchanged()
+	{
+		lastUnchanged = System.currentTimeMillis();
+	}
+
+	/**
+	 * Records that a new cache was seen at {@code seenAt}, logging how long it took to notice it
+	 *
+	 * @return the longest the new cache could have been live before we saw it, in milliseconds,
+	 * or -1 if we had not polled before
+	 */
+	public long changed(long seenAt)
+	{
+		interval = min;
+		if (lastUnchanged == 0)
+		{
+			return -1;
+		}
+
+		long window = seenAt - lastUnchanged;
+		log.info("Detected new cache within {}ms of the previous poll", window);
+		return window;
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.client;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.io.File;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.cache.codeupdater.Settings;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.flat.FlatStorage;
+
+/**
+ * Downloads a recorded session from a local {@link JS5Server} into an empty cache, and reports
+ * how long it took
+ */
+@Slf4j
+public class Replay
+{
+	public static void main(String[] args) throws Exception
+	{
+		String file = Settings.get("js5.replay");
+		if (file.isEmpty())
+		{
+			throw new IllegalArgumentException("must set js5.replay");
+		}
+
+		SessionRecording recording = SessionRecording.read(new File(file));
+		File dir = Files.createTempDirectory("js5-replay").toFile();
+		try (JS5Server server = new JS5Server(new JS5Server.Builder()
+			.recording(recording)
+			.recordedLatency(Settings.getBool("js5.replay_latency"))))
+		{
+			JS5Client.Builder builder = new JS5Client.Builder()
+				.store(new Store(new FlatStorage(dir)))
+				.hostname(InetAddress.getLoopbackAddress().getHostAddress())
+				.port(server.getPort())
+				.rev(recording.getRev());
+
+			long start = System.nanoTime();
+			try (JS5Client jsc = new JS5Client(builder))
+			{
+				jsc.enqueueRoot();
+				jsc.process();
+			}
+			long ms = (System.nanoTime() - start) / 1_000_000;
+
+			long recordedMs = recording.getRequests().isEmpty() ? 0 : recording.getRequests()
+				.get(recording.getRequests().size() - 1)
+				.getAtNanos() / 1_000_000;
+			log.info("Replayed {} responses ({} bytes) in {}ms, the last request was sent {}ms into the recording",
+				server.getResponses(), server.getBytesSent(), ms, recordedMs);
+		}
+		finally
+		{
+			MoreFiles.deleteRecursively(dir.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.client;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import lombok.Getter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A JS5 session as seen by {@link JS5Client}: every request in the order it was sent, and every
+ * response as it was received, with the time each happened. {@link JS5Server} can serve a
+ * recording back to a client with the same per-request latency, so changes to the client can be
+ * compared against real traffic without the live servers.
+ * <p>
+ * Times are stored as the microseconds since the previous event. Responses are stored without
+ * the 512 byte block framing.
+ */
+@Slf4j
+public class SessionRecording
+{
+	private static final int MAGIC = 0x4A533552; // JS5R
+	private static final int VERSION = 1;
+
+	private static final int REQUEST = 1;
+	private static final int RESPONSE = 2;
+
+	@Value
+	public static class Request
+	{
+		long atNanos;
+		boolean urgent;
+		int pid;
+	}
+
+	@Value
+	public static class Response
+	{
+		long atNanos;
+		long latencyNanos;
+		byte[] data;
+	}
+
+	@Getter
+	private int rev;
+
+	/**
+	 * when the session started, in epoch milliseconds
+	 */
+	@Getter
+	private long startedAt;
+
+	@Getter
+	private final List<Request> requests = new ArrayList<>();
+
+	private final Map<Integer, List<Response>> responses = new HashMap<>();
+
+	@Getter
+	private int responseCount;
+
+	private SessionRecording()
+	{
+	}
+
+	/**
+	 * @return the responses received for a request id, in the order they arrived
+	 */
+	public List<Response> getResponses(int pid)
+	{
+		return responses.getOrDefault(pid, Collections.emptyList());
+	}
+
+	public static SessionRecording read(File file) throws IOException
+	{
+		SessionRecording rec = new SessionRecording();
+		Map<Integer, Queue<Long>> pending = new HashMap<>();
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			if (in.readInt() != MAGIC)
+			{
+				throw new IOException(file + " is not a js5 session recording");
+			}
+			int version = in.readInt();
+			if (version != VERSION)
+			{
+				throw new IOException("unsupported recording version " + version);
+			}
+
+			rec.rev = in.readInt();
+			rec.startedAt = in.readLong();
+
+			long now = 0;
+			try
+			{
+				for (; ; )
+				{
+					int type = in.readUnsignedByte();
+					now += in.readInt() * 1000L;
+					int pid = in.readInt();
+					switch (type)
+					{
+						case REQUEST:
+						{
+							boolean urgent = in.readBoolean();
+							rec.requests.add(new Request(now, urgent, pid));
+							pending.computeIfAbsent(pid, k -> new ArrayDeque<>()).add(now);
+							break;
+						}
+						case RESPONSE:
+						{
+							byte[] data = new byte[in.readInt()];
+							in.readFully(data);
+
+							Queue<Long> sent = pending.get(pid);
+							Long requestedAt = sent == null ? null : sent.poll();
+							long latency = requestedAt == null ? 0 : now - requestedAt;
+
+							rec.responses.computeIfAbsent(pid, k -> new ArrayList<>())
+								.add(new Response(now, latency, data));
+							rec.responseCount++;
+							break;
+						}
+						default:
+							throw new IOException("unknown event type " + type + " in " + file);
+					}
+				}
+			}
+			catch (EOFException e)
+			{
+				// end of the recording, or the client died partway through an event
+			}
+		}
+
+		log.info("Read {} requests and {} responses from {}", rec.requests.size(), rec.responseCount, file);
+		return rec;
+	}
+
+	public static class Writer implements Closeable
+	{
+		private final DataOutputStream out;
+		private long last = System.nanoTime();
+
+		public Writer(File file, int rev) throws IOException
+		{
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(rev);
+			out.writeLong(System.currentTimeMillis());
+		}
+
+		private void event(int type, int pid) throws IOException
+		{
+			long now = System.nanoTime();
+			long delta = (now - last) / 1000;
+			// only advance by what we recorded so rounding does not accumulate
+			last += delta * 1000;
+
+			out.writeByte(type);
+			out.writeInt((int) Math.min(delta, Integer.MAX_VALUE));
+			out.writeInt(pid);
+		}
+
+		public void request(boolean urgent, int pid) throws IOException
+		{
+			event(REQUEST, pid);
+			out.writeBoolean(urgent);
+		}
+
+		public void response(int pid, byte[] data) throws IOException
+		{
+			event(RESPONSE, pid);
+			out.writeInt(data.length);
+			out.write(data);
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			out.close();
+		}
+	}
+}
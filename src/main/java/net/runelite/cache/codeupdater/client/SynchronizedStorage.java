@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019 Abex
+ * Copyright (c) 2026 Abex
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -22,25 +22,56 @@
  * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
-package net.runelite.cache.codeupdater.git;
+package net.runelite.cache.codeupdater.client;
 
-import java.util.function.Consumer;
-import org.eclipse.jgit.dircache.DirCacheEditor;
-import org.eclipse.jgit.dircache.DirCacheEntry;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
 
-public class PathEdit extends DirCacheEditor.PathEdit
+/**
+ * Serializes access to a {@link Storage}, so {@link JS5Client} can write archives while
+ * updaters read indexes that have finished downloading.
+ */
+@RequiredArgsConstructor
+public class SynchronizedStorage implements Storage
 {
-	private final Consumer<DirCacheEntry> editor;
+	private final Storage delegate;
+
+	@Override
+	public synchronized void init(Store store) throws IOException
+	{
+		delegate.init(store);
+	}
+
+	@Override
+	public synchronized void close() throws IOException
+	{
+		delegate.close();
+	}
 
-	public PathEdit(String path, Consumer<DirCacheEntry> editor)
+	@Override
+	public synchronized void load(Store store) throws IOException
+	{
+		delegate.load(store);
+	}
+
+	@Override
+	public synchronized void save(Store store) throws IOException
+	{
+		delegate.save(store);
+	}
+
+	@Override
+	public synchronized byte[] loadArchive(Archive archive) throws IOException
 	{
-		super(path);
-		this.editor = editor;
+		return delegate.loadArchive(archive);
 	}
 
 	@Override
-	public void apply(DirCacheEntry ent)
+	public synchronized void saveArchive(Archive archive, byte[] data) throws IOException
 	{
-		editor.accept(ent);
+		delegate.saveArchive(archive, data);
 	}
 }
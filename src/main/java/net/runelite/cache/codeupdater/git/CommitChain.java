@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.git;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.cache.codeupdater.Main;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Collects the commits finished onto a branch while updaters run concurrently. Each commit's
+ * blobs and trees are written as soon as it is finished, against the commit the branch was at
+ * when the chain began. When the chain completes the commits are chained in updater order and
+ * the branch is updated once, so the history doesn't depend on which updater finished first.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class CommitChain implements AutoCloseable
+{
+	private static final Map<Key, CommitChain> OPEN = new ConcurrentHashMap<>();
+
+	// the position in the chain of commits finished on this thread
+	private static final ThreadLocal<Integer> SLOT = new ThreadLocal<>();
+
+	@Value
+	private static class Key
+	{
+		Repository repo;
+		String branch;
+	}
+
+	@RequiredArgsConstructor
+	private static class Link
+	{
+		final int slot;
+		final int seq;
+		final MutableCommit.Staged staged;
+	}
+
+	private final Key key;
+	private final ObjectId base;
+	private final ObjectId baseTree;
+
+	private final List<Link> links = new ArrayList<>();
+	private final List<Listener> listeners = new ArrayList<>();
+
+	public interface Listener
+	{
+		void completed() throws IOException, GitAPIException;
+	}
+
+	public static CommitChain begin(Repository repo, String branch) throws IOException
+	{
+		ObjectId base = repo.resolve(branch);
+		if (base == null)
+		{
+			throw new IOException("unable to resolve " + branch);
+		}
+
+		CommitChain chain = new CommitChain(new Key(repo, branch), base, repo.parseCommit(base).getTree().copy());
+		if (OPEN.putIfAbsent(chain.key, chain) != null)
+		{
+			throw new IllegalStateException("a chain is already open on " + branch);
+		}
+		return chain;
+	}
+
+	static CommitChain find(Repository repo, String branch)
+	{
+		return OPEN.get(new Key(repo, branch));
+	}
+
+	/**
+	 * Runs {@code listener} once the chain open on {@code branch} has moved the branch, or
+	 * right away if no chain is open. Listeners run in the order they were added.
+	 */
+	public static void afterComplete(Repository repo, String branch, Listener listener) throws IOException, GitAPIException
+	{
+		CommitChain chain = find(repo, branch);
+		if (chain != null)
+		{
+			synchronized (chain.links)
+			{
+				if (OPEN.containsKey(chain.key))
+				{
+					chain.listeners.add(listener);
+					return;
+				}
+			}
+		}
+
+		listener.completed();
+	}
+
+	/**
+	 * @return {@code updater}, with the commits it finishes on its own thread placed at
+	 * {@code slot} in the chain
+	 */
+	public Main.RunAndThrow ordered(int slot, Main.RunAndThrow updater)
+	{
+		return () ->
+		{
+			SLOT.set(slot);
+			try
+			{
+				updater.run();
+			}
+			finally
+			{
+				SLOT.remove();
+			}
+		};
+	}
+
+	void add(MutableCommit commit) throws IOException
+	{
+		Integer slot = SLOT.get();
+		MutableCommit.Staged staged = commit.stage(key.repo, base);
+		synchronized (links)
+		{
+			if (!OPEN.containsKey(key))
+			{
+				staged.close();
+				throw new IllegalStateException("chain on " + key.branch + " has already completed");
+			}
+
+			// commits from outside an ordered updater go last, in the order they were finished
+			int s = slot == null ? Integer.MAX_VALUE : slot;
+			int seq = (int) links.stream().filter(l -> l.slot == s).count();
+			links.add(new Link(s, seq, staged));
+		}
+	}
+
+	/**
+	 * Chains every commit onto the branch in order, moves the branch to the last of them, then
+	 * runs the listeners added with {@link #afterComplete}
+	 *
+	 * @return the new head of the branch
+	 */
+	public ObjectId complete() throws IOException, GitAPIException
+	{
+		List<Link> chain;
+		List<Listener> after;
+		synchronized (links)
+		{
+			OPEN.remove(key, this);
+			chain = new ArrayList<>(links);
+			after = new ArrayList<>(listeners);
+			links.clear();
+			listeners.clear();
+		}
+		chain.sort(Comparator.<Link>comparingInt(l -> l.slot).thenComparingInt(l -> l.seq));
+
+		ObjectId head = base;
+		ObjectId tree = baseTree;
+		int commits = 0;
+		try
+		{
+			for (Link link : chain)
+			{
+				ObjectId newTree = link.staged.treeOn(tree);
+				ObjectId newCommit = link.staged.commit(head, tree, newTree);
+				if (newCommit != null)
+				{
+					head = newCommit;
+					tree = newTree;
+					commits++;
+				}
+			}
+		}
+		finally
+		{
+			chain.forEach(l -> l.staged.close());
+		}
+
+		if (commits > 0)
+		{
+			update(head);
+			log.info("Chained {} commits onto {} ({})", commits, key.branch, head.abbreviate(10).name());
+		}
+
+		for (Listener listener : after)
+		{
+			listener.completed();
+		}
+		return head;
+	}
+
+	private void update(ObjectId head) throws IOException
+	{
+		RefUpdate ru = key.repo.updateRef("refs/heads/" + key.branch);
+		ru.setNewObjectId(head);
+		ru.setRefLogMessage("commit (rlccau)", false);
+		ru.setExpectedOldObjectId(base);
+		RefUpdate.Result result = ru.forceUpdate();
+		switch (result)
+		{
+			case NEW:
+			case FORCED:
+			case FAST_FORWARD:
+			case NO_CHANGE:
+				break;
+			default:
+				throw new IOException("unable to update " + key.branch + ": " + result);
+		}
+	}
+
+	/**
+	 * Discards any commits and listeners that were not run by {@link #complete}
+	 */
+	@Override
+	public void close()
+	{
+		synchronized (links)
+		{
+			OPEN.remove(key, this);
+			links.forEach(l -> l.staged.close());
+			links.clear();
+			listeners.clear();
+		}
+	}
+}
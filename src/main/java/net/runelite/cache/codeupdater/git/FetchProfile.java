@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.git;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.api.FetchCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.transport.FetchResult;
+import org.eclipse.jgit.transport.RefSpec;
+
+/**
+ * How much of a remote {@link Repo#get} fetches
+ */
+@Slf4j
+public enum FetchProfile
+{
+	/**
+	 * every branch and tag the remote is configured to fetch
+	 */
+	ALL,
+
+	/**
+	 * only the branch the branch point is on, and tags
+	 */
+	BRANCH;
+
+	/**
+	 * @param branchPoint a remote tracking branch, like {@code upstream/master}, optionally
+	 * followed by a revision suffix like {@code ^} or {@code ~2}
+	 */
+	public FetchResult fetch(Git git, String remote, String branchPoint, ProgressMonitor monitor) throws GitAPIException
+	{
+		FetchCommand fetch = git.fetch()
+			.setRemote(remote)
+			.setProgressMonitor(monitor);
+
+		if (this == BRANCH)
+		{
+			String branch = remoteBranch(remote, branchPoint);
+			if (branch == null)
+			{
+				log.warn("{} is not a branch of {}, fetching everything", branchPoint, remote);
+			}
+			else
+			{
+				fetch.setRefSpecs(
+					new RefSpec()
+						.setForceUpdate(true)
+						.setSourceDestination(
+							Constants.R_HEADS + branch,
+							Constants.R_REMOTES + remote + "/" + branch),
+					// tags are few, and UpdateHandler.calculateTag needs them to avoid reusing one
+					new RefSpec(Constants.R_TAGS + "*:" + Constants.R_TAGS + "*"));
+			}
+		}
+
+		return fetch.call();
+	}
+
+	/**
+	 * @return the name of the branch on {@code remote} that {@code branchPoint} is on, or null
+	 */
+	static String remoteBranch(String remote, String branchPoint)
+	{
+		String prefix = remote + "/";
+		if (!branchPoint.startsWith(prefix))
+		{
+			return null;
+		}
+
+		String branch = branchPoint.substring(prefix.length());
+		int suffix = branch.indexOf('^');
+		int tilde = branch.indexOf('~');
+		if (tilde != -1 && (suffix == -1 || tilde < suffix))
+		{
+			suffix = tilde;
+		}
+		if (suffix != -1)
+		{
+			branch = branch.substring(0, suffix);
+		}
+
+		return branch.isEmpty() ? null : branch;
+	}
+}
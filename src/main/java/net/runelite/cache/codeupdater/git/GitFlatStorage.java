@@ -24,20 +24,63 @@
  */
 package net.runelite.cache.codeupdater.git;
 
+import com.google.common.base.Throwables;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.cache.codeupdater.Settings;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
 import net.runelite.cache.fs.flat.FlatStorage;
+import net.runelite.cache.index.FileData;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 
+@Slf4j
 public class GitFlatStorage extends FlatStorage
 {
+	private static final ExecutorService LOADER = Executors.newFixedThreadPool(
+		Runtime.getRuntime().availableProcessors(),
+		new ThreadFactoryBuilder()
+			.setNameFormat("flatcache-load-%d")
+			.setDaemon(true)
+			.build());
+
 	private final Repository repo;
+	private final ObjectId tree;
 	private final Map<String, ObjectId> files;
 	private final MutableCommit commit;
 
+	// archive data that hasn't been replaced since the store was opened from a snapshot
+	private StoreSnapshot snapshot;
+
+	// metadata of each index as it was last loaded or saved, so saves can skip indexes that did not change
+	private final Map<Integer, HashCode> saved = new HashMap<>();
+	private final Set<Integer> dirty = new HashSet<>();
+
 	GitFlatStorage(Repository repo, String commitish) throws IOException
 	{
 		this(repo, commitish, null);
@@ -45,8 +88,10 @@ public class GitFlatStorage extends FlatStorage
 
 	GitFlatStorage(Repository repo, String commitish, MutableCommit commit) throws IOException
 	{
+		TreeSnapshot snap = GitUtil.snapshot(repo, commitish);
 		this.repo = repo;
-		this.files = GitUtil.listDirectory(repo, commitish, "", n -> n.endsWith(EXTENSION));
+		this.tree = snap.getCommit().getTree().copy();
+		this.files = snap.list("", n -> n.endsWith(EXTENSION));
 		this.commit = commit;
 	}
 
@@ -59,7 +104,9 @@ public class GitFlatStorage extends FlatStorage
 	@Override
 	protected InputStream openReader(String filename) throws IOException
 	{
-		return repo.open(files.get(filename)).openStream();
+		ObjectLoader loader = repo.open(files.get(filename));
+		GitStats.blobLoaded(loader.getSize());
+		return loader.openStream();
 	}
 
 	@Override
@@ -72,4 +119,283 @@ public class GitFlatStorage extends FlatStorage
 
 		return commit.writeFile(filename);
 	}
+
+	/**
+	 * Opens the snapshot of this tree if there is one, otherwise parses the flatcache files
+	 * and writes a snapshot for next time
+	 */
+	@Override
+	public void load(Store store) throws IOException
+	{
+		String dir = Settings.get("cache.snapshot_dir");
+		File file = dir.isEmpty() ? null : new File(dir, tree.name() + ".snap");
+		if (file != null && file.exists())
+		{
+			try
+			{
+				snapshot = StoreSnapshot.read(file, store);
+				markSaved(store.getIndexes());
+				log.info("Opened {} from snapshot {}", tree.name(), file);
+				return;
+			}
+			catch (IOException | RuntimeException e)
+			{
+				log.warn("Unable to read snapshot {}, parsing the flatcache instead", file, e);
+				store.getIndexes().clear();
+				file.delete();
+			}
+		}
+
+		parse(store);
+
+		if (file != null)
+		{
+			try
+			{
+				StoreSnapshot.write(file, store, this);
+			}
+			catch (IOException e)
+			{
+				log.warn("Unable to write snapshot {}", file, e);
+			}
+		}
+	}
+
+	/**
+	 * Parses each flatcache file into its own store in parallel, then moves the indexes and
+	 * their data into {@code store} in index order
+	 */
+	private void parse(Store store) throws IOException
+	{
+		List<String> names = new ArrayList<>(files.keySet());
+		names.sort(Comparator.comparingInt(GitFlatStorage::indexId));
+
+		List<Future<Store>> parts = new ArrayList<>();
+		for (String name : names)
+		{
+			parts.add(LOADER.submit(() ->
+			{
+				try (ObjectReader reader = repo.newObjectReader())
+				{
+					Store part = new Store(new SingleFileStorage(name, reader));
+					part.load();
+					return part;
+				}
+			}));
+		}
+
+		try
+		{
+			for (Future<Store> future : parts)
+			{
+				Store part = future.get();
+				for (Index idx : part.getIndexes())
+				{
+					store.getIndexes().add(idx);
+					for (Archive ar : idx.getArchives())
+					{
+						byte[] data = part.getStorage().loadArchive(ar);
+						if (data != null)
+						{
+							// not our saveArchive, this doesn't make the index dirty
+							super.saveArchive(ar, data);
+						}
+					}
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			throw new InterruptedIOException();
+		}
+		catch (ExecutionException e)
+		{
+			Throwables.propagateIfPossible(e.getCause(), IOException.class);
+			throw new RuntimeException(e.getCause());
+		}
+		finally
+		{
+			for (Future<Store> future : parts)
+			{
+				future.cancel(true);
+			}
+		}
+
+		markSaved(store.getIndexes());
+	}
+
+	private static int indexId(String filename)
+	{
+		return Integer.parseInt(filename.substring(0, filename.length() - EXTENSION.length()));
+	}
+
+	/**
+	 * Reads a single flatcache file through its own reader
+	 */
+	@RequiredArgsConstructor
+	private class SingleFileStorage extends FlatStorage
+	{
+		private final String filename;
+		private final ObjectReader reader;
+
+		@Override
+		protected String[] listFlatcacheFiles()
+		{
+			return new String[]{filename};
+		}
+
+		@Override
+		protected InputStream openReader(String filename) throws IOException
+		{
+			ObjectLoader loader = reader.open(files.get(filename));
+			GitStats.blobLoaded(loader.getSize());
+			return loader.openStream();
+		}
+	}
+
+	@Override
+	public byte[] loadArchive(Archive archive) throws IOException
+	{
+		byte[] data = super.loadArchive(archive);
+		if (data == null && snapshot != null)
+		{
+			data = snapshot.load(archive);
+		}
+		return data;
+	}
+
+	@Override
+	public void saveArchive(Archive archive, byte[] data) throws IOException
+	{
+		super.saveArchive(archive, data);
+		synchronized (dirty)
+		{
+			dirty.add(archive.getIndex().getId());
+		}
+	}
+
+	/**
+	 * Writes only the indexes that have changed since they were loaded or last saved. The
+	 * flatcache files of the others are left alone, so they keep their existing blobs, and the
+	 * files of indexes that are no longer in the store are removed.
+	 */
+	@Override
+	public void save(Store store) throws IOException
+	{
+		if (commit == null)
+		{
+			throw new IOException("storage is read only");
+		}
+
+		List<Index> all = new ArrayList<>(store.getIndexes());
+		List<Index> changed = all.stream()
+			.filter(this::isDirty)
+			.collect(Collectors.toList());
+
+		Set<Integer> removed = new HashSet<>(saved.keySet());
+		all.forEach(idx -> removed.remove(idx.getId()));
+
+		log.info("Saving {} of {} indexes, removing {}", changed.size(), all.size(), removed.size());
+
+		// FlatStorage writes every index of the store it is given, so give it a store of just the changed ones
+		IndexWriter writer = new IndexWriter();
+		Store changes = new Store(writer);
+		for (Index idx : changed)
+		{
+			changes.getIndexes().add(idx);
+			for (Archive ar : idx.getArchives())
+			{
+				byte[] data = loadArchive(ar);
+				if (data != null)
+				{
+					writer.saveArchive(ar, data);
+				}
+			}
+		}
+		changes.save();
+
+		for (int id : removed)
+		{
+			commit.removeFile(id + EXTENSION);
+			saved.remove(id);
+		}
+
+		markSaved(changed);
+	}
+
+	/**
+	 * Writes flatcache files for {@link #save} into our commit
+	 */
+	private class IndexWriter extends FlatStorage
+	{
+		@Override
+		protected OutputStream openWriter(String filename) throws IOException
+		{
+			return GitFlatStorage.this.openWriter(filename);
+		}
+	}
+
+	private boolean isDirty(Index idx)
+	{
+		synchronized (dirty)
+		{
+			if (dirty.contains(idx.getId()))
+			{
+				return true;
+			}
+		}
+		return !fingerprint(idx).equals(saved.get(idx.getId()));
+	}
+
+	private void markSaved(List<Index> indexes)
+	{
+		for (Index idx : indexes)
+		{
+			saved.put(idx.getId(), fingerprint(idx));
+			synchronized (dirty)
+			{
+				dirty.remove(idx.getId());
+			}
+		}
+	}
+
+	/**
+	 * Hashes everything FlatStorage writes for an index except the archive contents. Those
+	 * are tracked by {@link #saveArchive}, and always come with a new archive crc anyway.
+	 */
+	private static HashCode fingerprint(Index idx)
+	{
+		Hasher h = Hashing.murmur3_128().newHasher()
+			.putInt(idx.getId())
+			.putInt(idx.getProtocol())
+			.putBoolean(idx.isNamed())
+			.putBoolean(idx.isSized())
+			.putInt(idx.getRevision())
+			.putInt(idx.getCrc())
+			.putInt(idx.getCompression());
+
+		for (Archive ar : idx.getArchives())
+		{
+			h.putInt(ar.getArchiveId())
+				.putInt(ar.getNameHash())
+				.putInt(ar.getRevision())
+				.putInt(ar.getCrc())
+				.putInt(ar.getCompression())
+				.putInt(ar.getCompressedSize())
+				.putInt(ar.getDecompressedSize());
+
+			FileData[] files = ar.getFileData();
+			if (files != null)
+			{
+				h.putInt(files.length);
+				for (FileData fd : files)
+				{
+					h.putInt(fd.getId())
+						.putInt(fd.getNameHash());
+				}
+			}
+		}
+
+		return h.hash();
+	}
 }
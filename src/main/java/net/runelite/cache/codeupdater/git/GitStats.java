@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.git;
+
+import com.google.common.cache.CacheStats;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.storage.file.WindowCacheStats;
+
+/**
+ * Counts what the updater reads out of its repositories, so JGit's caches can be sized for
+ * the runners. JGit only reports what its window cache currently holds, so reads and hit
+ * rates are counted by our own readers and caches.
+ */
+@Slf4j
+public class GitStats
+{
+	private static final LongAdder BLOBS = new LongAdder();
+	private static final LongAdder BLOB_BYTES = new LongAdder();
+	private static final LongAdder TREE_HITS = new LongAdder();
+	private static final LongAdder TREE_MISSES = new LongAdder();
+
+	@Value
+	public static class Sample
+	{
+		long time;
+		long blobs;
+		long blobBytes;
+		long treeHits;
+		long treeMisses;
+		long snapshotHits;
+		long snapshotMisses;
+	}
+
+	private GitStats()
+	{
+	}
+
+	static void blobLoaded(long size)
+	{
+		BLOBS.increment();
+		BLOB_BYTES.add(size);
+	}
+
+	/**
+	 * @param hit if a directory of a {@link TreeSnapshot} was already indexed
+	 */
+	static void treeIndexed(boolean hit)
+	{
+		(hit ? TREE_HITS : TREE_MISSES).increment();
+	}
+
+	public static Sample sample()
+	{
+		CacheStats snapshots = GitUtil.snapshotStats();
+		return new Sample(
+			System.currentTimeMillis(),
+			BLOBS.sum(),
+			BLOB_BYTES.sum(),
+			TREE_HITS.sum(),
+			TREE_MISSES.sum(),
+			snapshots.hitCount(),
+			snapshots.missCount());
+	}
+
+	/**
+	 * Logs what was read since {@code start}, and how much JGit's window cache holds now
+	 */
+	public static void log(String stage, Sample start)
+	{
+		Sample now = sample();
+		log.info("{}: read {} blobs ({}) in {}ms, tree index hit rate {}, commit snapshot hit rate {}, window cache holds {} in {} packs",
+			stage,
+			now.blobs - start.blobs,
+			bytes(now.blobBytes - start.blobBytes),
+			now.time - start.time,
+			rate(now.treeHits - start.treeHits, now.treeMisses - start.treeMisses),
+			rate(now.snapshotHits - start.snapshotHits, now.snapshotMisses - start.snapshotMisses),
+			bytes(WindowCacheStats.getOpenBytes()),
+			WindowCacheStats.getOpenFiles());
+	}
+
+	private static String rate(long hits, long misses)
+	{
+		long total = hits + misses;
+		if (total == 0)
+		{
+			return "-";
+		}
+		return String.format("%.1f%% of %d", hits * 100.0 / total, total);
+	}
+
+	private static String bytes(long bytes)
+	{
+		return String.format("%.1f MiB", bytes / (1024.0 * 1024.0));
+	}
+}
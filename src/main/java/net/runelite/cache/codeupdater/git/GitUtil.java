@@ -25,29 +25,54 @@
 package net.runelite.cache.codeupdater.git;
 
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Predicate;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.cache.codeupdater.Settings;
 import net.runelite.cache.fs.Store;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.internal.storage.file.PackInserter;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
-import org.eclipse.jgit.treewalk.TreeWalk;
 
 @Slf4j
 public final class GitUtil
 {
+	@Value
+	private static class SnapshotKey
+	{
+		Repository repo;
+		ObjectId commit;
+	}
+
+	private static final Cache<SnapshotKey, TreeSnapshot> SNAPSHOTS = CacheBuilder.newBuilder()
+		.maximumSize(32)
+		.recordStats()
+		.build();
+
 	private GitUtil()
 	{
 	}
 
+	static CacheStats snapshotStats()
+	{
+		return SNAPSHOTS.stats();
+	}
+
 	public static Store openStore(Repository repo, String commitish) throws IOException
 	{
 		return openStore(repo, commitish, null);
@@ -67,61 +92,37 @@ public final class GitUtil
 		return repo.parseCommit(repo.resolve(commitish));
 	}
 
-	public static Map<String, ObjectId> listDirectory(Repository repo, String commitish, String path, Predicate<String> filter) throws IOException
+	/**
+	 * @return a snapshot of the commit {@code commitish} currently points to. Snapshots are shared
+	 * between callers, so their directory indexes are only built once per commit
+	 */
+	public static TreeSnapshot snapshot(Repository repo, String commitish) throws IOException
 	{
-		Map<String, ObjectId> out = new HashMap<>();
-		RevCommit commit = resolve(repo, commitish);
-		TreeWalk tw = null;
-		int depth = 0;
-		try (ObjectReader or = repo.newObjectReader())
+		ObjectId id = repo.resolve(commitish);
+		if (id == null)
+		{
+			throw new IOException("unable to resolve " + commitish);
+		}
+
+		try
 		{
-			if (Strings.isNullOrEmpty(path))
-			{
-				tw = new TreeWalk(repo, or);
-				tw.reset(commit.getTree());
-				tw.setRecursive(false);
-			}
-			else
-			{
-				tw = TreeWalk.forPath(repo, or, path, commit.getTree());
-				tw.enterSubtree();
-				depth = tw.getDepth();
-			}
-			for (; tw.next() && tw.getDepth() == depth; )
-			{
-				if (tw.isSubtree())
-				{
-					continue;
-				}
-				String name = tw.getNameString();
-				if (filter.test(name))
-				{
-					out.put(name, tw.getObjectId(0));
-				}
-			}
+			return SNAPSHOTS.get(new SnapshotKey(repo, id), () -> new TreeSnapshot(repo, repo.parseCommit(id)));
 		}
-		finally
+		catch (ExecutionException e)
 		{
-			if (tw != null)
-			{
-				tw.close();
-			}
+			Throwables.propagateIfPossible(e.getCause(), IOException.class);
+			throw new RuntimeException(e.getCause());
 		}
-		return out;
 	}
 
-	public static byte[] readFile(Repository repo, String commitish, String path) throws IOException
+	public static Map<String, ObjectId> listDirectory(Repository repo, String commitish, String path, Predicate<String> filter) throws IOException
 	{
-		RevCommit commit = resolve(repo, commitish);
-		try (TreeWalk tw = TreeWalk.forPath(repo, path, commit.getTree()))
-		{
-			if (tw == null)
-			{
-				return null;
-			}
+		return snapshot(repo, commitish).list(Strings.nullToEmpty(path), filter);
+	}
 
-			return tw.getObjectReader().open(tw.getObjectId(0)).getBytes();
-		}
+	public static byte[] readFile(Repository repo, String commitish, String path) throws IOException
+	{
+		return snapshot(repo, commitish).read(path);
 	}
 
 	public static String readFileString(Repository repo, String commitish, String path) throws IOException
@@ -144,6 +145,32 @@ public final class GitUtil
 		return a + "/" + b;
 	}
 
+	/**
+	 * @return if {@link #newObjectInserter} writes packs into this repository
+	 */
+	public static boolean packsObjects(Repository repo)
+	{
+		return Settings.getBool("git.pack_inserter") && repo.getObjectDatabase() instanceof ObjectDirectory;
+	}
+
+	/**
+	 * Creates an inserter that writes everything inserted into a single pack when it is
+	 * flushed, if git.pack_inserter is set, or loose objects otherwise. Objects already in the
+	 * repository or in the pending pack are skipped. Objects inserted into a pack are not
+	 * written until flush, and are lost if it is closed first.
+	 */
+	public static ObjectInserter newObjectInserter(Repository repo)
+	{
+		if (!packsObjects(repo))
+		{
+			return repo.newObjectInserter();
+		}
+
+		PackInserter pi = ((ObjectDirectory) repo.getObjectDatabase()).newPackInserter();
+		pi.checkExisting(true);
+		return pi;
+	}
+
 	public static void diff(Repository repo, String commita, String commitb) throws GitAPIException, IOException
 	{
 		try (Git git = new Git(repo);
@@ -28,19 +28,20 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import net.runelite.cache.codeupdater.Main;
 import net.runelite.cache.codeupdater.Settings;
-import org.eclipse.jgit.dircache.DirCache;
-import org.eclipse.jgit.dircache.DirCacheEditor;
 import org.eclipse.jgit.lib.CommitBuilder;
 import org.eclipse.jgit.lib.Constants;
-import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.lib.ObjectReader;
@@ -79,6 +80,24 @@ public class MutableCommit
 	private final StringBuilder log = new StringBuilder();
 	private final Map<String, byte[]> files = Collections.synchronizedMap(new HashMap<>());
 
+	// files that have already been inserted into streamRepo
+	private final Map<String, ObjectId> blobs = Collections.synchronizedMap(new HashMap<>());
+	private Repository streamRepo;
+
+	// when packing, streamed blobs all go into the pack the commit is written into
+	private ObjectInserter streamInserter;
+
+	/**
+	 * Inserts each file into {@code repo} as soon as it is written, instead of holding its
+	 * contents until {@link #finish}, so only one file per writer is in memory at a time.
+	 * The commit must be finished into the same repository.
+	 */
+	public MutableCommit stream(Repository repo)
+	{
+		this.streamRepo = repo;
+		return this;
+	}
+
 	public void log(String line)
 	{
 		synchronized (log)
@@ -95,17 +114,73 @@ public class MutableCommit
 
 	public void writeFile(String path, byte[] contents)
 	{
-		files.put(path, contents);
+		if (streamRepo == null)
+		{
+			files.put(path, contents);
+			return;
+		}
+
+		streamFile(path, contents, contents.length);
+	}
+
+	private void streamFile(String path, byte[] contents, int length)
+	{
+		ObjectId blob = new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, contents, 0, length);
+		try
+		{
+			// most files are the same as they were in the parent, so don't write them again
+			if (!streamRepo.getObjectDatabase().has(blob))
+			{
+				insertStreamed(contents, length);
+			}
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+
+		synchronized (files)
+		{
+			files.remove(path);
+			blobs.put(path, blob);
+		}
 	}
 
 	public void writeFile(String path, String contents)
 	{
-		files.put(path, contents.getBytes(StandardCharsets.UTF_8));
+		writeFile(path, contents.getBytes(StandardCharsets.UTF_8));
 	}
 
 	public void removeFile(String path)
 	{
-		files.put(path, null);
+		synchronized (files)
+		{
+			blobs.remove(path);
+			files.put(path, null);
+		}
+	}
+
+	private void insertStreamed(byte[] contents, int length) throws IOException
+	{
+		if (GitUtil.packsObjects(streamRepo))
+		{
+			synchronized (blobs)
+			{
+				if (streamInserter == null)
+				{
+					streamInserter = GitUtil.newObjectInserter(streamRepo);
+				}
+				streamInserter.insert(Constants.OBJ_BLOB, contents, 0, length);
+			}
+			return;
+		}
+
+		// loose object inserters are cheap, and separate ones let writers deflate in parallel
+		try (ObjectInserter inser = streamRepo.newObjectInserter())
+		{
+			inser.insert(Constants.OBJ_BLOB, contents, 0, length);
+			inser.flush();
+		}
 	}
 
 	public OutputStream writeFile(String path)
@@ -115,7 +190,15 @@ public class MutableCommit
 			@Override
 			public void close()
 			{
-				writeFile(path, toByteArray());
+				if (streamRepo == null)
+				{
+					writeFile(path, toByteArray());
+				}
+				else
+				{
+					// insert straight from our buffer instead of copying it
+					streamFile(path, buf, count);
+				}
 			}
 		};
 	}
@@ -133,71 +216,166 @@ public class MutableCommit
 
 	public ObjectId finish(Repository repo, ObjectId parent) throws IOException
 	{
-		try (ObjectInserter inser = repo.newObjectInserter())
+		try (Staged staged = stage(repo, parent))
 		{
-			ObjectId parentTreeId = repo.parseCommit(parent).getTree().getId();
-			DirCache index;
-			if (parent == null)
-			{
-				index = DirCache.newInCore();
-			}
-			else
+			return staged.commit(parent, staged.baseTree, staged.tree);
+		}
+	}
+
+	/**
+	 * Writes this commit's blobs, and its tree on top of {@code parent}, without writing the
+	 * commit itself. The log and subject are captured as they are now.
+	 */
+	Staged stage(Repository repo, ObjectId parent) throws IOException
+	{
+		if (streamRepo != null && streamRepo != repo)
+		{
+			throw new IllegalArgumentException("commit was streamed into a different repository");
+		}
+
+		ObjectInserter streamed;
+		synchronized (blobs)
+		{
+			streamed = streamInserter;
+			streamInserter = null;
+		}
+
+		ObjectInserter inser = streamed != null ? streamed : GitUtil.newObjectInserter(repo);
+		ObjectReader or = repo.newObjectReader();
+		try
+		{
+			ObjectId parentTreeId = parent == null ? null : repo.parseCommit(parent).getTree().getId();
+
+			SparseTreeEditor editor = new SparseTreeEditor(or, inser);
+			int count;
+			synchronized (files)
 			{
-				try (ObjectReader or = repo.newObjectReader())
+				count = blobs.size() + files.size();
+				for (Map.Entry<String, ObjectId> file : blobs.entrySet())
 				{
-					index = DirCache.read(or, parentTreeId);
+					editor.put(file.getKey(), file.getValue(), null);
 				}
-			}
 
-			DirCacheEditor indexBuilder = index.editor();
-			for (Map.Entry<String, byte[]> file : files.entrySet())
-			{
-				if (file.getValue() == null)
+				for (Map.Entry<String, byte[]> file : files.entrySet())
 				{
-					indexBuilder.add(new DirCacheEditor.DeletePath(file.getKey()));
-					continue;
-				}
-				ObjectId blob = inser.insert(Constants.OBJ_BLOB, file.getValue());
-				indexBuilder.add(new PathEdit(file.getKey(), e -> {
-					e.setObjectId(blob);
-					e.setFileMode(FileMode.REGULAR_FILE);
-					long now = System.currentTimeMillis();
-					synchronized (MutableCommit.class)
+					byte[] contents = file.getValue();
+					if (contents == null)
+					{
+						editor.delete(file.getKey());
+					}
+					else
 					{
-						// Some (GitKraken) breaks if commits are less than 1 second apart
-						// So commit stuff into the future if we are committing too fast
-						now = Math.max(now, lastCommitTime + 1000);
-						lastCommitTime = now;
+						// only hashed here, the editor inserts it if it differs from the parent
+						editor.put(file.getKey(), inser.idFor(Constants.OBJ_BLOB, contents), contents);
 					}
-					e.setLastModified(now);
-				}));
+				}
+			}
+
+			ObjectId tree = editor.apply(parentTreeId);
+			logger.debug("{} of {} files are unchanged", editor.getUnchanged(), count);
+
+			String message;
+			synchronized (log)
+			{
+				message = log.toString();
+			}
+			return new Staged(inser, or, editor, parentTreeId, tree, subject, message);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			or.close();
+			inser.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * A commit whose blobs and trees have been written, but which has no commit object yet
+	 */
+	@RequiredArgsConstructor
+	static class Staged implements AutoCloseable
+	{
+		private final ObjectInserter inser;
+		private final ObjectReader or;
+		private final SparseTreeEditor editor;
+		private final ObjectId baseTree;
+		private final ObjectId tree;
+		private final String subject;
+		private final String log;
+
+		/**
+		 * @return the tree of this commit with its edits made to {@code parentTree} instead
+		 */
+		ObjectId treeOn(ObjectId parentTree) throws IOException
+		{
+			if (Objects.equals(parentTree, baseTree))
+			{
+				return tree;
 			}
-			indexBuilder.finish();
+			return editor.apply(parentTree);
+		}
 
-			ObjectId tree = index.writeTree(inser);
-			if (tree.equals(parentTreeId) && log.length() == 0)
+		/**
+		 * @return the new commit, or null if it would have been empty
+		 */
+		ObjectId commit(ObjectId parent, ObjectId parentTree, ObjectId tree) throws IOException
+		{
+			if (tree.equals(parentTree) && log.isEmpty())
 			{
 				// Empty commit
 				return null;
 			}
 
 			CommitBuilder cb = new CommitBuilder();
-			cb.setParentId(parent);
+			if (parent != null)
+			{
+				cb.setParentId(parent);
+			}
 			cb.setTreeId(tree);
-			cb.setMessage(subject + "\n\n" + log.toString());
+			cb.setMessage(subject + "\n\n" + log);
+
+			long now = System.currentTimeMillis();
+			synchronized (MutableCommit.class)
+			{
+				// Some (GitKraken) breaks if commits are less than 1 second apart
+				// So commit stuff into the future if we are committing too fast
+				now = Math.max(now, lastCommitTime + 1000);
+				lastCommitTime = now;
+			}
 
-			PersonIdent author = new PersonIdent("RuneLite Cache-Code Autoupdater", Settings.get("git.commit.owner"));
+			PersonIdent author = new PersonIdent(
+				new PersonIdent("RuneLite Cache-Code Autoupdater", Settings.get("git.commit.owner")),
+				new Date(now));
 			cb.setAuthor(author);
 			cb.setCommitter(author);
 
 			ObjectId newCommit = inser.insert(cb);
+			inser.flush();
 			logger.info("Wrote commit for {} ({})", subject, newCommit.abbreviate(10).name());
 			return newCommit;
 		}
+
+		@Override
+		public void close()
+		{
+			or.close();
+			inser.close();
+		}
 	}
 
+	/**
+	 * Commits onto {@code branch}. While a {@link CommitChain} is open on the branch the commit
+	 * is only staged here, and is added to the branch when the chain completes.
+	 */
 	public void finish(Repository repo, String branch) throws IOException
 	{
+		CommitChain chain = CommitChain.find(repo, branch);
+		if (chain != null)
+		{
+			chain.add(this);
+			return;
+		}
+
 		synchronized (repo)
 		{
 			ObjectId commitish = repo.resolve(branch);
@@ -221,5 +399,14 @@ public class MutableCommit
 		log.setLength(0);
 		log.trimToSize();
 		files.clear();
+		synchronized (blobs)
+		{
+			blobs.clear();
+			if (streamInserter != null)
+			{
+				streamInserter.close();
+				streamInserter = null;
+			}
+		}
 	}
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.git;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.TransportException;
+import org.eclipse.jgit.internal.JGitText;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+
+/**
+ * Collects the refs a run wants to push to a remote, so they can all be sent in a single push
+ * with one pack, instead of negotiating with the remote once per ref
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class PushQueue
+{
+	private final Repository repo;
+	private final String remote;
+	private final boolean atomic;
+
+	// by destination, so pushing a ref again replaces the earlier spec
+	private final Map<String, RefSpec> specs = new LinkedHashMap<>();
+
+	public synchronized void add(RefSpec spec)
+	{
+		specs.put(spec.getDestination(), spec);
+	}
+
+	/**
+	 * Queues {@code branchName}, replacing the remote's branch whether or not it fast forwards
+	 */
+	public void addBranch(String branchName)
+	{
+		add(new RefSpec(branchName + ":" + branchName).setForceUpdate(true));
+	}
+
+	public synchronized boolean isEmpty()
+	{
+		return specs.isEmpty();
+	}
+
+	public synchronized void clear()
+	{
+		specs.clear();
+	}
+
+	/**
+	 * Pushes every queued ref and empties the queue. If the remote supports it the refs are
+	 * updated atomically, so either all of them or none of them change.
+	 *
+	 * @return the update of each ref
+	 */
+	public Collection<RemoteRefUpdate> push(ProgressMonitor monitor) throws GitAPIException
+	{
+		List<RefSpec> queued;
+		synchronized (this)
+		{
+			queued = new ArrayList<>(specs.values());
+			specs.clear();
+		}
+
+		if (queued.isEmpty())
+		{
+			return new ArrayList<>();
+		}
+
+		log.info("Pushing {} refs to {}", queued.size(), remote);
+		Iterable<PushResult> results;
+		try
+		{
+			results = push(queued, atomic, monitor);
+		}
+		catch (TransportException e)
+		{
+			if (!atomic || !atomicNotSupported(e))
+			{
+				throw e;
+			}
+
+			log.info("{} does not support atomic pushes, updating refs individually", remote);
+			results = push(queued, false, monitor);
+		}
+
+		List<RemoteRefUpdate> updates = new ArrayList<>();
+		for (PushResult result : results)
+		{
+			for (RemoteRefUpdate update : result.getRemoteUpdates())
+			{
+				switch (update.getStatus())
+				{
+					case OK:
+					case UP_TO_DATE:
+						break;
+					default:
+						log.warn("Unable to push {}: {} {}", update.getRemoteName(), update.getStatus(),
+							update.getMessage() == null ? "" : update.getMessage());
+				}
+				updates.add(update);
+			}
+		}
+		return updates;
+	}
+
+	private static boolean atomicNotSupported(Throwable e)
+	{
+		// the transport prefixes the message with the remote's uri, and PushCommand wraps it again
+		String unsupported = JGitText.get().atomicPushNotSupported;
+		for (Throwable t = e; t != null; t = t.getCause())
+		{
+			if (t.getMessage() != null && t.getMessage().endsWith(unsupported))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Iterable<PushResult> push(List<RefSpec> specs, boolean atomic, ProgressMonitor monitor) throws GitAPIException
+	{
+		try (Git git = new Git(repo))
+		{
+			return git.push()
+				.setRemote(remote)
+				.setRefSpecs(specs)
+				.setAtomic(atomic)
+				.setProgressMonitor(monitor)
+				.setThin(true)
+				.call();
+		}
+	}
+}
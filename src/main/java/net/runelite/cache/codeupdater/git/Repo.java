@@ -33,10 +33,13 @@ import net.runelite.cache.codeupdater.Settings;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.TextProgressMonitor;
+import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.storage.file.FileBasedConfig;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
 import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.util.FS;
@@ -49,7 +52,11 @@ public enum Repo
 	RUNELITE,
 	SRN;
 
+	private static boolean windowCacheConfigured;
+
 	private Repository repo;
+	private PushQueue pushQueue;
+	private RevCommit branchPoint;
 
 	@Getter
 	private boolean hasOrigin;
@@ -114,13 +121,92 @@ public enum Repo
 		});
 	}
 
-	public Repository get() throws IOException
+	/**
+	 * Sizes JGit's window and delta base caches, which are shared by every repository. This
+	 * happens when the first repository is opened, so a bad setting fails that instead of
+	 * the class initializer.
+	 */
+	private static synchronized void configureWindowCache()
+	{
+		if (windowCacheConfigured)
+		{
+			return;
+		}
+
+		WindowCacheConfig cfg = new WindowCacheConfig();
+		long limit = size("git.packed_git_limit", cfg.getPackedGitLimit());
+		int windowSize = intSize("git.packed_git_window_size", cfg.getPackedGitWindowSize());
+		if (windowSize < 4096 || Integer.bitCount(windowSize) != 1)
+		{
+			throw new IllegalArgumentException("git.packed_git_window_size must be a power of two of at least 4k, not " + windowSize);
+		}
+		if (windowSize > limit)
+		{
+			throw new IllegalArgumentException("git.packed_git_window_size must not be larger than git.packed_git_limit");
+		}
+
+		cfg.setPackedGitLimit(limit);
+		cfg.setPackedGitWindowSize(windowSize);
+		cfg.setDeltaBaseCacheLimit(intSize("git.delta_base_cache_limit", cfg.getDeltaBaseCacheLimit()));
+		cfg.setStreamFileThreshold(intSize("git.stream_file_threshold", cfg.getStreamFileThreshold()));
+		cfg.install();
+		windowCacheConfigured = true;
+
+		log.debug("Window cache limit {}, window size {}, delta base cache limit {}, stream threshold {}",
+			cfg.getPackedGitLimit(), cfg.getPackedGitWindowSize(), cfg.getDeltaBaseCacheLimit(), cfg.getStreamFileThreshold());
+	}
+
+	/**
+	 * @return the size in {@code key}, which may end in k, m or g, or {@code def} if it is empty
+	 */
+	private static long size(String key, long def)
+	{
+		String value = Settings.get(key).trim().toLowerCase();
+		if (value.isEmpty())
+		{
+			return def;
+		}
+
+		int unit = "kmg".indexOf(value.charAt(value.length() - 1)) + 1;
+		if (unit != 0)
+		{
+			value = value.substring(0, value.length() - 1).trim();
+		}
+
+		try
+		{
+			long size = Math.multiplyExact(Long.parseLong(value), 1L << (10 * unit));
+			if (size <= 0)
+			{
+				throw new IllegalArgumentException(key + " must be positive, not " + Settings.get(key));
+			}
+			return size;
+		}
+		catch (NumberFormatException | ArithmeticException e)
+		{
+			throw new IllegalArgumentException(key + " is not a valid size: " + Settings.get(key), e);
+		}
+	}
+
+	private static int intSize(String key, int def)
+	{
+		long size = size(key, def);
+		if (size > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException(key + " must be less than 2g, not " + Settings.get(key));
+		}
+		return (int) size;
+	}
+
+	public synchronized Repository get() throws IOException
 	{
 		if (repo != null)
 		{
 			return repo;
 		}
 
+		configureWindowCache();
+
 		try
 		{
 			String name = name().toLowerCase();
@@ -141,11 +227,9 @@ public enum Repo
 
 				if (setRemote(git, name, "upstream") && Settings.getBool("git.fetch.allowed"))
 				{
-					log.info("Updating {}", name);
-					git.fetch()
-						.setProgressMonitor(new TextProgressMonitor())
-						.setRemote("upstream")
-						.call();
+					FetchProfile profile = FetchProfile.valueOf(Settings.get("repo." + name + ".fetch").toUpperCase());
+					log.info("Updating {} ({})", name, profile);
+					profile.fetch(git, "upstream", Settings.get("repo." + name + ".branch_point"), new TextProgressMonitor());
 					log.info("Done");
 				}
 			}
@@ -180,22 +264,43 @@ public enum Repo
 		}
 	}
 
-	public void pushBranch(String branchName) throws GitAPIException
+	/**
+	 * Queues {@code branchName} to be force pushed to origin by the next {@link #push}
+	 */
+	public void pushBranch(String branchName) throws IOException
+	{
+		pushQueue().addBranch(branchName);
+	}
+
+	public void queuePush(RefSpec spec) throws IOException
 	{
-		if (hasOrigin && Settings.getBool("git.push.allowed"))
+		pushQueue().add(spec);
+	}
+
+	/**
+	 * Pushes everything queued for this repository to origin in a single push
+	 *
+	 * @return if anything was pushed
+	 */
+	public boolean push() throws IOException, GitAPIException
+	{
+		PushQueue queue = pushQueue();
+		if (!hasOrigin || !Settings.getBool("git.push.allowed"))
 		{
-			try (Git git = new Git(repo))
-			{
-				log.info("Pushing {}", branchName);
-				git.push()
-					.setRemote("origin")
-					.setRefSpecs(new RefSpec(branchName + ":" + branchName))
-					.setProgressMonitor(new TextProgressMonitor())
-					.setForce(true)
-					.setThin(true)
-					.call();
-			}
+			queue.clear();
+			return false;
 		}
+
+		return !queue.push(new TextProgressMonitor()).isEmpty();
+	}
+
+	private synchronized PushQueue pushQueue() throws IOException
+	{
+		if (pushQueue == null)
+		{
+			pushQueue = new PushQueue(get(), "origin", Settings.getBool("git.push.atomic"));
+		}
+		return pushQueue;
 	}
 
 	public static void closeAll()
@@ -209,16 +314,32 @@ public enum Repo
 		}
 	}
 
-	public void branch(String branchName) throws GitAPIException, IOException
+	/**
+	 * @return the commit {@code repo.<name>.branch_point} resolved to the first time it was asked for
+	 */
+	public synchronized RevCommit getBranchPoint() throws IOException
 	{
-		get();
+		if (branchPoint == null)
+		{
+			String name = Settings.get("repo." + name().toLowerCase() + ".branch_point");
+			ObjectId id = get().resolve(name);
+			if (id == null)
+			{
+				throw new IOException("unable to resolve branch point " + name + " of " + name());
+			}
+			branchPoint = get().parseCommit(id);
+		}
+		return branchPoint;
+	}
 
+	public void branch(String branchName) throws GitAPIException, IOException
+	{
 		try (Git git = new Git(get()))
 		{
 			git.branchCreate()
 				.setForce(true)
 				.setName(branchName)
-				.setStartPoint(Settings.get("repo." + name().toLowerCase() + ".branch_point"))
+				.setStartPoint(getBranchPoint())
 				.call();
 		}
 	}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.git;
+
+import com.google.common.primitives.UnsignedBytes;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+
+/**
+ * Edits a tree by rewriting only the trees on the paths being edited. Every other subtree
+ * keeps its id without being read, so the cost scales with the edit, not the tree.
+ */
+@RequiredArgsConstructor
+class SparseTreeEditor
+{
+	// git sorts tree entries by their utf-8 name, with trees sorting as if they end in /
+	private static final Comparator<String> TREE_ORDER = Comparator.comparing(
+		(String k) -> k.getBytes(StandardCharsets.UTF_8),
+		UnsignedBytes.lexicographicalComparator());
+
+	private final ObjectReader reader;
+	private final ObjectInserter inserter;
+
+	private final Node root = new Node();
+
+	/**
+	 * number of files that were put with the id they already had
+	 */
+	@Getter
+	private int unchanged;
+
+	private static class Node
+	{
+		final Map<String, Node> children = new HashMap<>();
+
+		boolean edited;
+		ObjectId blob;
+		byte[] contents;
+	}
+
+	@RequiredArgsConstructor
+	private static class Entry
+	{
+		final byte[] name;
+		final FileMode mode;
+		final ObjectId id;
+	}
+
+	/**
+	 * Sets a regular file. If {@code contents} is not null it is inserted as the blob, but only
+	 * if the file has changed. Otherwise the blob must already exist.
+	 */
+	public void put(String path, ObjectId blob, byte[] contents)
+	{
+		Node n = node(path);
+		n.edited = true;
+		n.blob = blob;
+		n.contents = contents;
+	}
+
+	public void delete(String path)
+	{
+		put(path, null, null);
+	}
+
+	private Node node(String path)
+	{
+		Node n = root;
+		for (String part : path.split("/"))
+		{
+			if (!part.isEmpty())
+			{
+				n = n.children.computeIfAbsent(part, k -> new Node());
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Edits that leave a path as it already was are dropped, so applying the editor again to
+	 * another tree only makes the changes this one actually made.
+	 *
+	 * @param tree the tree to edit, or null to start from an empty tree
+	 * @return the id of the edited tree
+	 */
+	public ObjectId apply(ObjectId tree) throws IOException
+	{
+		ObjectId id = write(tree, root);
+		if (id == null)
+		{
+			return inserter.insert(new TreeFormatter());
+		}
+		return id;
+	}
+
+	/**
+	 * @return the id of the edited tree, or null if it is now empty
+	 */
+	private ObjectId write(ObjectId tree, Node edits) throws IOException
+	{
+		TreeMap<String, Entry> entries = new TreeMap<>(TREE_ORDER);
+		if (tree != null)
+		{
+			for (CanonicalTreeParser p = new CanonicalTreeParser(null, reader, tree); !p.eof(); p.next(1))
+			{
+				FileMode mode = p.getEntryFileMode();
+				String name = p.getEntryPathString();
+				entries.put(key(name, mode), new Entry(name.getBytes(StandardCharsets.UTF_8), mode, p.getEntryObjectId()));
+			}
+		}
+
+		boolean changed = false;
+		for (Map.Entry<String, Node> edit : edits.children.entrySet())
+		{
+			String name = edit.getKey();
+			Node n = edit.getValue();
+			String fileKey = key(name, FileMode.REGULAR_FILE);
+			String treeKey = key(name, FileMode.TREE);
+
+			if (n.edited)
+			{
+				Entry old = entries.get(fileKey);
+				if (n.blob == null)
+				{
+					if (entries.remove(fileKey) != null)
+					{
+						changed = true;
+					}
+					else
+					{
+						n.edited = false;
+					}
+				}
+				else if (old != null && old.mode == FileMode.REGULAR_FILE && n.blob.equals(old.id))
+				{
+					unchanged++;
+					n.edited = false;
+				}
+				else
+				{
+					if (n.contents != null)
+					{
+						inserter.insert(Constants.OBJ_BLOB, n.contents);
+					}
+					entries.remove(treeKey);
+					entries.put(fileKey, new Entry(name.getBytes(StandardCharsets.UTF_8), FileMode.REGULAR_FILE, n.blob));
+					changed = true;
+				}
+			}
+
+			if (!n.children.isEmpty())
+			{
+				Entry old = entries.get(treeKey);
+				ObjectId oldId = old == null ? null : old.id;
+				ObjectId newId = write(oldId, n);
+				if (newId == null)
+				{
+					changed |= entries.remove(treeKey) != null;
+				}
+				else if (!newId.equals(oldId))
+				{
+					entries.remove(fileKey);
+					entries.put(treeKey, new Entry(name.getBytes(StandardCharsets.UTF_8), FileMode.TREE, newId));
+					changed = true;
+				}
+			}
+		}
+
+		if (entries.isEmpty())
+		{
+			return null;
+		}
+		if (!changed && tree != null)
+		{
+			return tree;
+		}
+
+		TreeFormatter fmt = new TreeFormatter();
+		for (Entry e : entries.values())
+		{
+			fmt.append(e.name, e.mode, e.id);
+		}
+		return inserter.insert(fmt);
+	}
+
+	private static String key(String name, FileMode mode)
+	{
+		return mode == FileMode.TREE ? name + "/" : name;
+	}
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.git;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
+
+/**
+ * A binary copy of a loaded {@link Store}, so it can be reopened without parsing the
+ * flatcache files again. The index metadata is read eagerly, but archive data stays in the
+ * memory mapped file until it is asked for.
+ */
+@Slf4j
+class StoreSnapshot
+{
+	private static final int MAGIC = 0x524C5353; // RLSS
+	private static final int VERSION = 1;
+
+	// snapshots that haven't been opened recently are removed past this many
+	private static final int KEEP = 8;
+
+	private final ByteBuffer buf;
+
+	// position of the length prefixed data of each archive
+	private final Map<Long, Integer> offsets;
+
+	private StoreSnapshot(ByteBuffer buf, Map<Long, Integer> offsets)
+	{
+		this.buf = buf;
+		this.offsets = offsets;
+	}
+
+	/**
+	 * Maps {@code file} and adds its indexes and archives to {@code store}
+	 */
+	static StoreSnapshot read(File file, Store store) throws IOException
+	{
+		MappedByteBuffer buf;
+		try (FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			buf = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+		}
+
+		if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+		{
+			throw new IOException("bad snapshot header");
+		}
+		if (buf.getInt(buf.limit() - 4) != MAGIC)
+		{
+			throw new IOException("truncated snapshot");
+		}
+
+		Map<Long, Integer> offsets = new HashMap<>();
+		int indexes = buf.getInt();
+		for (int i = 0; i < indexes; i++)
+		{
+			Index idx = store.addIndex(buf.getInt());
+			idx.setProtocol(buf.getInt());
+			idx.setRevision(buf.getInt());
+			idx.setCrc(buf.getInt());
+			idx.setCompression(buf.getInt());
+			idx.setNamed(buf.get() != 0);
+			idx.setSized(buf.get() != 0);
+
+			int archives = buf.getInt();
+			for (int a = 0; a < archives; a++)
+			{
+				Archive ar = idx.addArchive(buf.getInt());
+				ar.setNameHash(buf.getInt());
+				ar.setRevision(buf.getInt());
+				ar.setCrc(buf.getInt());
+				ar.setCompression(buf.getInt());
+				ar.setCompressedSize(buf.getInt());
+				ar.setDecompressedSize(buf.getInt());
+
+				int files = buf.getInt();
+				if (files >= 0)
+				{
+					FileData[] fds = new FileData[files];
+					for (int f = 0; f < files; f++)
+					{
+						FileData fd = new FileData();
+						fd.setId(buf.getInt());
+						fd.setNameHash(buf.getInt());
+						fds[f] = fd;
+					}
+					ar.setFileData(fds);
+				}
+
+				int pos = buf.position();
+				int len = buf.getInt();
+				if (len >= 0)
+				{
+					offsets.put(key(ar), pos);
+					buf.position(pos + 4 + len);
+				}
+			}
+		}
+
+		file.setLastModified(System.currentTimeMillis());
+		return new StoreSnapshot(buf, offsets);
+	}
+
+	/**
+	 * @return the data of the archive as it was when the snapshot was written, or null
+	 */
+	byte[] load(Archive archive)
+	{
+		Integer pos = offsets.get(key(archive));
+		if (pos == null)
+		{
+			return null;
+		}
+
+		ByteBuffer b = buf.duplicate();
+		b.position(pos);
+		byte[] data = new byte[b.getInt()];
+		b.get(data);
+		return data;
+	}
+
+	/**
+	 * Writes {@code store}, with archive data from {@code storage}, to {@code file}. The file
+	 * is written next to its destination and moved into place, so readers never see part of it.
+	 */
+	static void write(File file, Store store, Storage storage) throws IOException
+	{
+		File dir = file.getAbsoluteFile().getParentFile();
+		dir.mkdirs();
+
+		File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+		try
+		{
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp))))
+			{
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(store.getIndexes().size());
+				for (Index idx : store.getIndexes())
+				{
+					out.writeInt(idx.getId());
+					out.writeInt(idx.getProtocol());
+					out.writeInt(idx.getRevision());
+					out.writeInt(idx.getCrc());
+					out.writeInt(idx.getCompression());
+					out.writeBoolean(idx.isNamed());
+					out.writeBoolean(idx.isSized());
+
+					out.writeInt(idx.getArchives().size());
+					for (Archive ar : idx.getArchives())
+					{
+						out.writeInt(ar.getArchiveId());
+						out.writeInt(ar.getNameHash());
+						out.writeInt(ar.getRevision());
+						out.writeInt(ar.getCrc());
+						out.writeInt(ar.getCompression());
+						out.writeInt(ar.getCompressedSize());
+						out.writeInt(ar.getDecompressedSize());
+
+						FileData[] fds = ar.getFileData();
+						out.writeInt(fds == null ? -1 : fds.length);
+						if (fds != null)
+						{
+							for (FileData fd : fds)
+							{
+								out.writeInt(fd.getId());
+								out.writeInt(fd.getNameHash());
+							}
+						}
+
+						byte[] data = storage.loadArchive(ar);
+						if (data != null && (long) out.size() + data.length + 8 > Integer.MAX_VALUE)
+						{
+							// the archive, and the trailer after it, would not fit in a mapping
+							throw new IOException("store is too large to snapshot");
+						}
+						out.writeInt(data == null ? -1 : data.length);
+						if (data != null)
+						{
+							out.write(data);
+						}
+					}
+				}
+				out.writeInt(MAGIC);
+
+				if (out.size() == Integer.MAX_VALUE)
+				{
+					// DataOutputStream's counter saturated, which the metadata alone could do
+					throw new IOException("store is too large to snapshot");
+				}
+			}
+
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally
+		{
+			tmp.delete();
+		}
+
+		prune(dir);
+	}
+
+	private static void prune(File dir)
+	{
+		File[] snapshots = dir.listFiles((d, name) -> name.endsWith(".snap"));
+		if (snapshots == null || snapshots.length <= KEEP)
+		{
+			return;
+		}
+
+		Arrays.sort(snapshots, Comparator.comparingLong(File::lastModified).reversed());
+		for (int i = KEEP; i < snapshots.length; i++)
+		{
+			log.debug("Removing old snapshot {}", snapshots[i]);
+			snapshots[i].delete();
+		}
+	}
+
+	private static long key(Archive ar)
+	{
+		return (long) ar.getIndex().getId() << 32 | ar.getArchiveId();
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.git;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+
+/**
+ * The tree of a single commit, with each directory indexed by name the first time something
+ * in it is looked up, so repeated reads do not walk the tree from the root. Safe to share
+ * between threads; each thread reads through its own {@link ObjectReader}. The readers are not
+ * closed, since a snapshot evicted from the cache may still be in use; they are released
+ * once the snapshot is no longer reachable.
+ */
+public class TreeSnapshot
+{
+	@RequiredArgsConstructor
+	private static class Entry
+	{
+		final FileMode mode;
+		final ObjectId id;
+	}
+
+	private final Repository repo;
+
+	@Getter
+	private final RevCommit commit;
+
+	// directory path, "" for the root, to the entries directly in it
+	private final Map<String, Map<String, Entry>> directories = new ConcurrentHashMap<>();
+
+	private final ThreadLocal<ObjectReader> reader;
+
+	public TreeSnapshot(Repository repo, RevCommit commit)
+	{
+		this.repo = repo;
+		this.commit = commit;
+		this.reader = ThreadLocal.withInitial(repo::newObjectReader);
+	}
+
+	/**
+	 * @return the id of the file or tree at {@code path}, or null if there is nothing there
+	 */
+	public ObjectId getId(String path) throws IOException
+	{
+		Entry e = entry(path);
+		return e == null ? null : e.id;
+	}
+
+	/**
+	 * @return the contents of the file at {@code path}, or null if there is no file there
+	 */
+	public byte[] read(String path) throws IOException
+	{
+		Entry e = entry(path);
+		if (e == null || e.mode == FileMode.TREE)
+		{
+			return null;
+		}
+		byte[] data = reader.get().open(e.id, Constants.OBJ_BLOB).getBytes();
+		GitStats.blobLoaded(data.length);
+		return data;
+	}
+
+	/**
+	 * @return the files directly in {@code dir} whose names match {@code filter}
+	 */
+	public Map<String, ObjectId> list(String dir, Predicate<String> filter) throws IOException
+	{
+		Map<String, ObjectId> out = new HashMap<>();
+		for (Map.Entry<String, Entry> e : directory(trim(dir)).entrySet())
+		{
+			if (e.getValue().mode != FileMode.TREE && filter.test(e.getKey()))
+			{
+				out.put(e.getKey(), e.getValue().id);
+			}
+		}
+		return out;
+	}
+
+	private Entry entry(String path) throws IOException
+	{
+		path = trim(path);
+		int slash = path.lastIndexOf('/');
+		return directory(slash == -1 ? "" : path.substring(0, slash)).get(path.substring(slash + 1));
+	}
+
+	private Map<String, Entry> directory(String dir) throws IOException
+	{
+		Map<String, Entry> entries = directories.get(dir);
+		GitStats.treeIndexed(entries != null);
+		if (entries != null)
+		{
+			return entries;
+		}
+
+		ObjectId tree;
+		if (dir.isEmpty())
+		{
+			tree = commit.getTree();
+		}
+		else
+		{
+			Entry e = entry(dir);
+			if (e == null || e.mode != FileMode.TREE)
+			{
+				return Collections.emptyMap();
+			}
+			tree = e.id;
+		}
+
+		entries = new HashMap<>();
+		for (CanonicalTreeParser p = new CanonicalTreeParser(null, reader.get(), tree); !p.eof(); p.next(1))
+		{
+			entries.put(p.getEntryPathString(), new Entry(p.getEntryFileMode(), p.getEntryObjectId()));
+		}
+
+		// another thread may have indexed it at the same time, in which case they are the same
+		Map<String, Entry> prev = directories.putIfAbsent(dir, entries);
+		return prev != null ? prev : entries;
+	}
+
+	private static String trim(String path)
+	{
+		if (path.startsWith("/"))
+		{
+			path = path.substring(1);
+		}
+		if (path.endsWith("/"))
+		{
+			path = path.substring(0, path.length() - 1);
+		}
+		return path;
+	}
+}
@@ -40,6 +40,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.codeupdater.Main;
+import net.runelite.cache.codeupdater.git.CommitChain;
 import net.runelite.cache.codeupdater.git.GitUtil;
 import net.runelite.cache.codeupdater.git.MutableCommit;
 import net.runelite.cache.codeupdater.git.Repo;
@@ -174,30 +175,29 @@ public class ScriptUpdate
 				log.info("Updated script {}", scriptFile);
 			}));
 
-		try (Git git = new Git(rl))
-		{
-			String newBranch = Main.branchName + "-previous";
-			git.branchCreate()
-				.setForce(true)
-				.setName(newBranch)
-				.setStartPoint(Main.branchName)
-				.call();
-			oldDelta.finish(rl, newBranch);
-			Repo.RUNELITE.pushBranch(newBranch);
-		}
 		mc.finish(rl, Main.branchName);
 
+		// the deltas go on top of the scripts commit, which is only on the branch once every updater is done
+		CommitChain.afterComplete(rl, Main.branchName, () ->
+		{
+			deltaBranch(rl, "-previous", oldDelta);
+			deltaBranch(rl, "-next", newDelta);
+		});
+	}
+
+	private static void deltaBranch(Repository rl, String suffix, MutableCommit delta) throws IOException, GitAPIException
+	{
+		String newBranch = Main.branchName + suffix;
 		try (Git git = new Git(rl))
 		{
-			String newBranch = Main.branchName + "-next";
 			git.branchCreate()
 				.setForce(true)
 				.setName(newBranch)
 				.setStartPoint(Main.branchName)
 				.call();
-			newDelta.finish(rl, newBranch);
-			Repo.RUNELITE.pushBranch(newBranch);
 		}
+		delta.finish(rl, newBranch);
+		Repo.RUNELITE.pushBranch(newBranch);
 	}
 
 	@VisibleForTesting
@@ -138,7 +138,8 @@ public class SRNUpdate
 		TextureManager ptm = new TextureManager(Main.previous);
 		ptm.load();
 
-		MutableCommit imCommit = new MutableCommit("Item Icons");
+		MutableCommit imCommit = new MutableCommit("Item Icons")
+			.stream(Repo.SRN.get());
 
 		IntPredicate isSpriteChanged = sid ->
 		{
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.client;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.List;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.flat.FlatStorage;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HostProberTest
+{
+	private static final int REV = 200;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void ranksReachableHostsFirst() throws IOException
+	{
+		String host = InetAddress.getLoopbackAddress().getHostAddress();
+
+		int deadPort;
+		try (ServerSocket ss = new ServerSocket(0, 1, InetAddress.getLoopbackAddress()))
+		{
+			deadPort = ss.getLocalPort();
+		}
+
+		Store store = new Store(new FlatStorage(folder.newFolder()));
+		try (JS5Server current = new JS5Server(new JS5Server.Builder()
+			.store(store)
+			.rev(REV));
+			JS5Server newer = new JS5Server(new JS5Server.Builder()
+				.store(store)
+				.rev(REV + 1)))
+		{
+			List<HostProber.Probe> probes = HostProber.probe(Arrays.asList(
+				InetSocketAddress.createUnresolved(host, deadPort),
+				InetSocketAddress.createUnresolved(host, current.getPort()),
+				InetSocketAddress.createUnresolved(host, newer.getPort())
+			), REV, 2500);
+
+			Assert.assertEquals(3, probes.size());
+
+			HostProber.Probe dead = probes.get(2);
+			Assert.assertEquals(deadPort, dead.getPort());
+			Assert.assertFalse(dead.isReachable());
+
+			for (HostProber.Probe probe : probes.subList(0, 2))
+			{
+				Assert.assertTrue(probe.isReachable());
+				Assert.assertEquals(probe.getPort() == current.getPort() ? 0 : 6, probe.getStatus());
+			}
+		}
+	}
+}
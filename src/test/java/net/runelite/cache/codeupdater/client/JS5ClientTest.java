@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Random;
+import java.util.zip.CRC32;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.flat.FlatStorage;
+import net.runelite.cache.index.FileData;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JS5ClientTest
+{
+	private static final int REV = 200;
+	private static final int ARCHIVES = 4;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Store source;
+
+	@Before
+	public void before() throws IOException
+	{
+		source = new Store(new FlatStorage(folder.newFolder()));
+		Index idx = source.addIndex(2);
+		idx.setRevision(1);
+		for (int i = 0; i < ARCHIVES; i++)
+		{
+			// large enough to span multiple 512 byte blocks
+			byte[] payload = new byte[10 + i * 700];
+			new Random(i).nextBytes(payload);
+
+			ByteBuffer container = ByteBuffer.allocate(payload.length + 5);
+			container.put((byte) 0);
+			container.putInt(payload.length);
+			container.put(payload);
+
+			FileData fd = new FileData();
+			fd.setId(0);
+
+			Archive ar = idx.addArchive(i);
+			ar.setRevision(1);
+			ar.setCrc(crc(container.array()));
+			ar.setFileData(new FileData[]{fd});
+			source.getStorage().saveArchive(ar, container.array());
+		}
+	}
+
+	private JS5Client.Builder client(JS5Server server) throws IOException
+	{
+		return new JS5Client.Builder()
+			.store(new Store(new FlatStorage(folder.newFolder())))
+			.hostname(InetAddress.getLoopbackAddress().getHostAddress())
+			.port(server.getPort())
+			.rev(REV);
+	}
+
+	@Test
+	public void download() throws IOException
+	{
+		try (JS5Server server = new JS5Server(new JS5Server.Builder()
+			.store(source)
+			.rev(REV)))
+		{
+			JS5Client.Builder b = client(server);
+			try (JS5Client jsc = new JS5Client(b))
+			{
+				jsc.enqueueRoot();
+				jsc.process();
+
+				Assert.assertTrue(jsc.hasSeenChange());
+				Assert.assertEquals(0, jsc.getCorruptArchives());
+			}
+
+			Index srcIdx = source.findIndex(2);
+			Index dstIdx = b.store().findIndex(2);
+			Assert.assertNotNull(dstIdx);
+			for (int i = 0; i < ARCHIVES; i++)
+			{
+				Archive ar = dstIdx.getArchive(i);
+				Assert.assertNotNull(ar);
+				Assert.assertEquals(srcIdx.getArchive(i).getCrc(), ar.getCrc());
+				Assert.assertArrayEquals(
+					source.getStorage().loadArchive(srcIdx.getArchive(i)),
+					b.store().getStorage().loadArchive(ar));
+			}
+		}
+	}
+
+	@Test
+	public void metricsAreWrittenWhenDownloadFinishes() throws IOException
+	{
+		File metrics = new File(folder.getRoot(), "metrics.json");
+		try (JS5Server server = new JS5Server(new JS5Server.Builder()
+			.store(source)
+			.rev(REV)))
+		{
+			JS5Client.Builder b = client(server);
+			// far longer than the download takes
+			b.metrics().export(metrics, 60_000);
+			b.metrics().export(metrics, 60_000);
+			try (JS5Client jsc = new JS5Client(b))
+			{
+				jsc.enqueueRoot();
+				jsc.process();
+			}
+		}
+
+		Assert.assertTrue(metrics.exists());
+		String json = new String(Files.readAllBytes(metrics.toPath()), StandardCharsets.UTF_8);
+		Assert.assertTrue(json.contains("index_complete_ms"));
+	}
+
+	@Test
+	public void revisionBump() throws IOException
+	{
+		try (JS5Server server = new JS5Server(new JS5Server.Builder()
+			.store(source)
+			.rev(REV)))
+		{
+			try (JS5Client jsc = new JS5Client(client(server).rev(REV - 2)))
+			{
+				Assert.assertEquals(REV, jsc.getRev());
+			}
+			Assert.assertEquals(3, server.getConnections());
+		}
+	}
+
+	@Test
+	public void revisionProbe() throws IOException
+	{
+		try (JS5Server server = new JS5Server(new JS5Server.Builder()
+			.store(source)
+			.rev(REV)))
+		{
+			JS5Client.Builder b = client(server)
+				.rev(REV - 2)
+				.revProbes(4);
+			try (JS5Client jsc = new JS5Client(b))
+			{
+				Assert.assertEquals(REV, jsc.getRev());
+
+				jsc.enqueueRoot();
+				jsc.process();
+				Assert.assertTrue(jsc.hasSeenChange());
+			}
+			// the builder is left as it was
+			Assert.assertEquals(REV - 2, b.rev());
+			// the initial handshake, then one batch of 4
+			Assert.assertEquals(5, server.getConnections());
+		}
+	}
+
+	@Test
+	public void corruptArchivesAreRerequested() throws IOException
+	{
+		try (JS5Server server = new JS5Server(new JS5Server.Builder()
+			.store(source)
+			.rev(REV)
+			.corruptChance(1)))
+		{
+			JS5Client jsc = new JS5Client(client(server));
+			try
+			{
+				jsc.enqueueRoot();
+				jsc.process();
+				Assert.fail("corrupt archives were accepted");
+			}
+			catch (IOException e)
+			{
+				// every response is corrupt, so the client must give up
+			}
+			finally
+			{
+				jsc.close();
+			}
+
+			// the first corrupt response is the index table for index 2
+			Assert.assertEquals(3, jsc.getCorruptArchives());
+			Assert.assertTrue(jsc.getToDownload().contains(255 << 16 | 2));
+		}
+	}
+
+	@Test
+	public void recordAndReplay() throws IOException
+	{
+		File recordDir = folder.newFolder();
+		try (JS5Server server = new JS5Server(new JS5Server.Builder()
+			.store(source)
+			.rev(REV)))
+		{
+			try (JS5Client jsc = new JS5Client(client(server).recordDir(recordDir)))
+			{
+				jsc.enqueueRoot();
+				jsc.process();
+			}
+		}
+
+		File[] sessions = recordDir.listFiles();
+		Assert.assertEquals(1, sessions.length);
+
+		SessionRecording recording = SessionRecording.read(sessions[0]);
+		Assert.assertEquals(REV, recording.getRev());
+		// the root, the index table, and every archive
+		Assert.assertEquals(2 + ARCHIVES, recording.getRequests().size());
+		Assert.assertEquals(255 << 16 | 255, recording.getRequests().get(0).getPid());
+		Assert.assertEquals(2 + ARCHIVES, recording.getResponseCount());
+
+		try (JS5Server server = new JS5Server(new JS5Server.Builder()
+			.recording(recording)))
+		{
+			JS5Client.Builder b = client(server);
+			try (JS5Client jsc = new JS5Client(b))
+			{
+				jsc.enqueueRoot();
+				jsc.process();
+				Assert.assertEquals(0, jsc.getCorruptArchives());
+			}
+
+			Index srcIdx = source.findIndex(2);
+			Index dstIdx = b.store().findIndex(2);
+			for (int i = 0; i < ARCHIVES; i++)
+			{
+				Assert.assertArrayEquals(
+					source.getStorage().loadArchive(srcIdx.getArchive(i)),
+					b.store().getStorage().loadArchive(dstIdx.getArchive(i)));
+			}
+		}
+	}
+
+	@Test
+	public void replayRequestsRootAgain() throws IOException
+	{
+		File journalFile = new File(folder.newFolder(), "js5.journal");
+		try (JS5Server server = new JS5Server(new JS5Server.Builder()
+			.store(source)
+			.rev(REV));
+			DownloadJournal journal = new DownloadJournal(journalFile))
+		{
+			try (JS5Client jsc = new JS5Client(client(server).journal(journal)))
+			{
+				jsc.enqueueRoot();
+				jsc.process();
+			}
+		}
+
+		Store store = new Store(new FlatStorage(folder.newFolder()));
+		Queue<Integer> todo = new ArrayDeque<>();
+		todo.add(255 << 16 | 255);
+		try (DownloadJournal journal = new DownloadJournal(journalFile))
+		{
+			Assert.assertTrue(JS5Client.replay(store, journal, todo));
+		}
+
+		// everything was answered, but the server may have moved on since
+		Assert.assertEquals(1, todo.size());
+		Assert.assertEquals(255 << 16 | 255, (int) todo.peek());
+		Assert.assertNotNull(store.findIndex(2));
+	}
+
+	private static int crc(byte[] data)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		return (int) crc.getValue();
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.git;
+
+import net.runelite.cache.codeupdater.client.UpdateHandler;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FetchProfileTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Repository upstream;
+	private Repository local;
+
+	private ObjectId master;
+	private ObjectId other;
+
+	@Before
+	public void before() throws Exception
+	{
+		upstream = GitTestUtil.create(folder.newFolder("upstream.git"));
+		master = GitTestUtil.commit(upstream, null, "a");
+		other = GitTestUtil.commit(upstream, master, "b");
+		GitTestUtil.ref(upstream, "refs/heads/master", master);
+		GitTestUtil.ref(upstream, "refs/heads/other", other);
+		GitTestUtil.ref(upstream, "refs/tags/v1", master);
+
+		local = GitTestUtil.create(folder.newFolder("local"));
+		GitTestUtil.addRemote(local, "upstream", upstream);
+	}
+
+	@After
+	public void after()
+	{
+		local.close();
+		upstream.close();
+	}
+
+	@Test
+	public void branchFetchesOnlyTheBranchPoint() throws Exception
+	{
+		try (Git git = new Git(local))
+		{
+			FetchProfile.BRANCH.fetch(git, "upstream", "upstream/master^", NullProgressMonitor.INSTANCE);
+		}
+
+		Assert.assertEquals(master, local.resolve("upstream/master"));
+		Assert.assertNull(local.resolve("upstream/other"));
+		Assert.assertFalse(local.getObjectDatabase().has(other));
+		Assert.assertEquals(master, local.resolve("refs/tags/v1"));
+	}
+
+	@Test
+	public void tagCollisionsAreSeenAfterBranchFetch() throws Exception
+	{
+		String released = UpdateHandler.calculateTag(upstream, 200, null);
+		GitTestUtil.ref(upstream, "refs/tags/" + released, master);
+
+		try (Git git = new Git(local))
+		{
+			FetchProfile.BRANCH.fetch(git, "upstream", "upstream/master", NullProgressMonitor.INSTANCE);
+		}
+
+		String next = UpdateHandler.calculateTag(local, 200, null);
+		Assert.assertNotEquals(released, next);
+		Assert.assertNull(local.resolve(next));
+	}
+
+	@Test
+	public void allFetchesEverything() throws Exception
+	{
+		try (Git git = new Git(local))
+		{
+			FetchProfile.ALL.fetch(git, "upstream", "upstream/master", NullProgressMonitor.INSTANCE);
+		}
+
+		Assert.assertEquals(master, local.resolve("upstream/master"));
+		Assert.assertEquals(other, local.resolve("upstream/other"));
+		Assert.assertEquals(master, local.resolve("refs/tags/v1"));
+	}
+
+	@Test
+	public void remoteBranch()
+	{
+		Assert.assertEquals("master", FetchProfile.remoteBranch("upstream", "upstream/master"));
+		Assert.assertEquals("gh-pages", FetchProfile.remoteBranch("upstream", "upstream/gh-pages~2"));
+		Assert.assertEquals("a/b", FetchProfile.remoteBranch("upstream", "upstream/a/b^"));
+		Assert.assertNull(FetchProfile.remoteBranch("upstream", "origin/master"));
+		Assert.assertNull(FetchProfile.remoteBranch("upstream", "0123abcd"));
+	}
+}
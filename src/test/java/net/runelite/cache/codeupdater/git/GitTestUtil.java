@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.git;
+
+import java.io.File;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.transport.URIish;
+
+/**
+ * Builds small repositories for tests that talk to a local remote
+ */
+class GitTestUtil
+{
+	private GitTestUtil()
+	{
+	}
+
+	static Repository create(File gitDir) throws Exception
+	{
+		Repository repo = new FileRepositoryBuilder()
+			.setGitDir(gitDir)
+			.build();
+		repo.create(true);
+		return repo;
+	}
+
+	static void addRemote(Repository repo, String name, Repository remote) throws Exception
+	{
+		try (Git git = new Git(repo))
+		{
+			git.remoteAdd()
+				.setName(name)
+				.setUri(new URIish(remote.getDirectory().toURI().toURL()))
+				.call();
+		}
+	}
+
+	/**
+	 * @return a commit on top of {@code parent} that adds {@code file}.txt
+	 */
+	static ObjectId commit(Repository repo, ObjectId parent, String file) throws Exception
+	{
+		MutableCommit mc = new MutableCommit(file, false);
+		mc.writeFile(file + ".txt", file);
+		return mc.finish(repo, parent);
+	}
+
+	static void ref(Repository repo, String name, ObjectId id) throws Exception
+	{
+		RefUpdate ru = repo.updateRef(name);
+		ru.setNewObjectId(id);
+		ru.forceUpdate();
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.git;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MutableCommitTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Repository repo;
+
+	@Before
+	public void before() throws IOException
+	{
+		repo = new FileRepositoryBuilder()
+			.setGitDir(folder.newFolder())
+			.build();
+		repo.create(true);
+	}
+
+	@After
+	public void after()
+	{
+		repo.close();
+	}
+
+	@Test
+	public void editsOnlyTouchedTrees() throws IOException
+	{
+		MutableCommit mc = new MutableCommit("first", false);
+		mc.writeFile("a/b/c.txt", "c");
+		mc.writeFile("a/d.txt", "d");
+		mc.writeFile("e.txt", "e");
+		mc.writeFile("f/g.txt", "g");
+		ObjectId first = mc.finish(repo, (ObjectId) null);
+		Assert.assertNotNull(first);
+
+		mc = new MutableCommit("second", false);
+		mc.writeFile("a/b/c.txt", "c2");
+		mc.writeFile("a/d.txt", "d");
+		mc.writeFile("a/x/y.txt", "y");
+		mc.removeFile("e.txt");
+		ObjectId second = mc.finish(repo, first);
+		Assert.assertNotNull(second);
+
+		RevTree tree = repo.parseCommit(second).getTree();
+		Assert.assertEquals("c2", read(tree, "a/b/c.txt"));
+		Assert.assertEquals("d", read(tree, "a/d.txt"));
+		Assert.assertEquals("y", read(tree, "a/x/y.txt"));
+		Assert.assertEquals("g", read(tree, "f/g.txt"));
+		Assert.assertNull(read(tree, "e.txt"));
+
+		// untouched subtrees are reused as is
+		RevTree firstTree = repo.parseCommit(first).getTree();
+		Assert.assertEquals(id(firstTree, "f"), id(tree, "f"));
+	}
+
+	@Test
+	public void streamedAndBufferedFilesMatch() throws IOException
+	{
+		MutableCommit buffered = new MutableCommit("buffered", false);
+		buffered.writeFile("a/b.txt", "b");
+		buffered.writeFile("c.txt", "c");
+		ObjectId a = buffered.finish(repo, (ObjectId) null);
+
+		MutableCommit streamed = new MutableCommit("streamed", false)
+			.stream(repo);
+		streamed.writeFile("a/b.txt", "b");
+		streamed.writeFile("c.txt", "c");
+		ObjectId b = streamed.finish(repo, (ObjectId) null);
+
+		Assert.assertEquals(repo.parseCommit(a).getTree(), repo.parseCommit(b).getTree());
+	}
+
+	@Test
+	public void unchangedFilesMakeNoCommit() throws IOException
+	{
+		MutableCommit mc = new MutableCommit("first", false);
+		mc.writeFile("a/b.txt", "b");
+		ObjectId first = mc.finish(repo, (ObjectId) null);
+
+		mc = new MutableCommit("second", false);
+		mc.writeFile("a/b.txt", "b");
+		Assert.assertNull(mc.finish(repo, first));
+	}
+
+	@Test
+	public void chainedCommitsFollowSlotOrder() throws Exception
+	{
+		MutableCommit mc = new MutableCommit("base", false);
+		mc.writeFile("a.txt", "a");
+		ObjectId base = mc.finish(repo, (ObjectId) null);
+		RefUpdate ru = repo.updateRef("refs/heads/branch");
+		ru.setNewObjectId(base);
+		ru.forceUpdate();
+
+		ObjectId head;
+		try (CommitChain chain = CommitChain.begin(repo, "branch"))
+		{
+			// finished in the opposite order to their slots
+			chain.ordered(1, () ->
+			{
+				MutableCommit second = new MutableCommit("second", false);
+				second.writeFile("b.txt", "b");
+				second.finish(repo, "branch");
+			}).run();
+			chain.ordered(0, () ->
+			{
+				MutableCommit first = new MutableCommit("first", false);
+				first.writeFile("a.txt", "a2");
+				first.finish(repo, "branch");
+			}).run();
+
+			// nothing moves until the chain completes
+			Assert.assertEquals(base, repo.resolve("branch"));
+			head = chain.complete();
+		}
+
+		Assert.assertEquals(head, repo.resolve("branch"));
+		RevCommit second = repo.parseCommit(head);
+		RevCommit first = repo.parseCommit(second.getParent(0));
+		Assert.assertEquals("second", second.getShortMessage());
+		Assert.assertEquals("first", first.getShortMessage());
+		Assert.assertEquals(base, first.getParent(0));
+
+		Assert.assertEquals("a2", read(second.getTree(), "a.txt"));
+		Assert.assertEquals("b", read(second.getTree(), "b.txt"));
+		Assert.assertNull(read(first.getTree(), "b.txt"));
+	}
+
+	@Test
+	public void listenersRunOnceTheChainCompletes() throws Exception
+	{
+		MutableCommit mc = new MutableCommit("base", false);
+		mc.writeFile("a.txt", "a");
+		ObjectId base = mc.finish(repo, (ObjectId) null);
+		RefUpdate ru = repo.updateRef("refs/heads/branch");
+		ru.setNewObjectId(base);
+		ru.forceUpdate();
+
+		List<ObjectId> seen = new ArrayList<>();
+		ObjectId head;
+		try (CommitChain chain = CommitChain.begin(repo, "branch"))
+		{
+			MutableCommit change = new MutableCommit("change", false);
+			change.writeFile("a.txt", "a2");
+			change.finish(repo, "branch");
+			CommitChain.afterComplete(repo, "branch", () -> seen.add(repo.resolve("branch")));
+
+			Assert.assertTrue(seen.isEmpty());
+			head = chain.complete();
+		}
+
+		Assert.assertEquals(List.of(head), seen);
+
+		// without an open chain the listener runs right away
+		CommitChain.afterComplete(repo, "branch", () -> seen.add(repo.resolve("branch")));
+		Assert.assertEquals(List.of(head, head), seen);
+	}
+
+	private String read(RevTree tree, String path) throws IOException
+	{
+		try (TreeWalk tw = TreeWalk.forPath(repo, path, tree))
+		{
+			if (tw == null)
+			{
+				return null;
+			}
+			return new String(repo.open(tw.getObjectId(0)).getBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private ObjectId id(RevTree tree, String path) throws IOException
+	{
+		try (TreeWalk tw = TreeWalk.forPath(repo, path, tree))
+		{
+			return tw.getObjectId(0);
+		}
+	}
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.git;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import org.eclipse.jgit.errors.NotSupportedException;
+import org.eclipse.jgit.errors.TransportException;
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.transport.BasePackPushConnection;
+import org.eclipse.jgit.transport.FetchConnection;
+import org.eclipse.jgit.transport.PackTransport;
+import org.eclipse.jgit.transport.PushConnection;
+import org.eclipse.jgit.transport.ReceivePack;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+import org.eclipse.jgit.transport.Transport;
+import org.eclipse.jgit.transport.TransportProtocol;
+import org.eclipse.jgit.transport.URIish;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PushQueueTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Repository remote;
+	private Repository local;
+
+	@Before
+	public void before() throws Exception
+	{
+		remote = GitTestUtil.create(folder.newFolder("remote.git"));
+		local = GitTestUtil.create(folder.newFolder("local"));
+		GitTestUtil.addRemote(local, "origin", remote);
+	}
+
+	@After
+	public void after()
+	{
+		local.close();
+		remote.close();
+	}
+
+	@Test
+	public void pushesEveryQueuedRef() throws Exception
+	{
+		ObjectId a = commit(null, "a");
+		ObjectId b = commit(a, "b");
+		branch("main", b);
+		branch("main-previous", a);
+		branch("main-next", b);
+
+		PushQueue queue = new PushQueue(local, "origin", true);
+		queue.addBranch("main-previous");
+		queue.addBranch("main-next");
+		queue.addBranch("main");
+		Collection<RemoteRefUpdate> updates = queue.push(NullProgressMonitor.INSTANCE);
+
+		Assert.assertEquals(3, updates.size());
+		for (RemoteRefUpdate update : updates)
+		{
+			Assert.assertEquals(RemoteRefUpdate.Status.OK, update.getStatus());
+		}
+		Assert.assertEquals(b, remote.resolve("main"));
+		Assert.assertEquals(a, remote.resolve("main-previous"));
+		Assert.assertEquals(b, remote.resolve("main-next"));
+		Assert.assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void rejectedRefAbortsAtomicPush() throws Exception
+	{
+		ObjectId a = commit(null, "a");
+		ObjectId b = commit(a, "b");
+		branch("main", b);
+
+		PushQueue queue = new PushQueue(local, "origin", true);
+		queue.addBranch("main");
+		queue.push(NullProgressMonitor.INSTANCE);
+
+		// not a fast forward, and not forced
+		ObjectId c = commit(a, "c");
+		branch("main", c);
+		branch("other", c);
+		queue.add(new RefSpec("main:main"));
+		queue.addBranch("other");
+		queue.push(NullProgressMonitor.INSTANCE);
+
+		Assert.assertEquals(b, remote.resolve("main"));
+		Assert.assertNull(remote.resolve("other"));
+	}
+
+	@Test
+	public void fallsBackWhenAtomicPushIsNotAdvertised() throws Exception
+	{
+		ObjectId a = commit(null, "a");
+		ObjectId b = commit(a, "b");
+		branch("main", b);
+		branch("main-next", a);
+
+		// an in process remote that doesn't advertise the atomic capability
+		InMemoryRepository noAtomic = new InMemoryRepository(new DfsRepositoryDescription("noatomic"));
+		noAtomic.setPerformsAtomicTransactions(false);
+		TransportProtocol protocol = new TransportProtocol()
+		{
+			@Override
+			public String getName()
+			{
+				return "noatomic";
+			}
+
+			@Override
+			public Set<String> getSchemes()
+			{
+				return Set.of("noatomic");
+			}
+
+			@Override
+			public Set<URIishField> getRequiredFields()
+			{
+				return EnumSet.of(URIishField.HOST, URIishField.PATH);
+			}
+
+			@Override
+			public Transport open(URIish uri, Repository local, String remoteName)
+			{
+				return new PipedTransport(local, uri, noAtomic);
+			}
+		};
+
+		StoredConfig config = local.getConfig();
+		config.setString("remote", "noatomic", "url", "noatomic://localhost/noatomic.git");
+		config.save();
+
+		Transport.register(protocol);
+		try
+		{
+			PushQueue queue = new PushQueue(local, "noatomic", true);
+			queue.addBranch("main");
+			queue.addBranch("main-next");
+			Collection<RemoteRefUpdate> updates = queue.push(NullProgressMonitor.INSTANCE);
+
+			Assert.assertEquals(2, updates.size());
+			for (RemoteRefUpdate update : updates)
+			{
+				Assert.assertEquals(RemoteRefUpdate.Status.OK, update.getStatus());
+			}
+			Assert.assertEquals(b, noAtomic.resolve("main"));
+			Assert.assertEquals(a, noAtomic.resolve("main-next"));
+		}
+		finally
+		{
+			Transport.unregister(protocol);
+			noAtomic.close();
+		}
+	}
+
+	private ObjectId commit(ObjectId parent, String file) throws Exception
+	{
+		return GitTestUtil.commit(local, parent, file);
+	}
+
+	private void branch(String name, ObjectId id) throws Exception
+	{
+		GitTestUtil.ref(local, "refs/heads/" + name, id);
+	}
+
+	private static class PipedTransport extends Transport implements PackTransport
+	{
+		private final Repository remote;
+
+		PipedTransport(Repository local, URIish uri, Repository remote)
+		{
+			super(local, uri);
+			this.remote = remote;
+		}
+
+		@Override
+		public FetchConnection openFetch() throws NotSupportedException
+		{
+			throw new NotSupportedException("push only");
+		}
+
+		@Override
+		public PushConnection openPush() throws TransportException
+		{
+			return new PipedPushConnection(this, remote);
+		}
+
+		@Override
+		public void close()
+		{
+		}
+	}
+
+	private static class PipedPushConnection extends BasePackPushConnection
+	{
+		private final Thread receiver;
+
+		PipedPushConnection(PackTransport transport, Repository remote) throws TransportException
+		{
+			super(transport);
+
+			PipedInputStream fromRemote = new PipedInputStream();
+			PipedInputStream toRemote = new PipedInputStream();
+			PipedOutputStream remoteOut;
+			PipedOutputStream localOut;
+			try
+			{
+				remoteOut = new PipedOutputStream(fromRemote);
+				localOut = new PipedOutputStream(toRemote);
+			}
+			catch (IOException e)
+			{
+				throw new TransportException(uri, "unable to connect", e);
+			}
+
+			receiver = new Thread(() ->
+			{
+				ReceivePack rp = new ReceivePack(remote);
+				try (InputStream in = toRemote;
+					OutputStream out = remoteOut)
+				{
+					rp.receive(in, out, null);
+				}
+				catch (IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+			});
+			receiver.start();
+
+			init(fromRemote, localOut);
+			readAdvertisedRefs();
+		}
+
+		@Override
+		public void close()
+		{
+			super.close();
+			try
+			{
+				receiver.join();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.codeupdater.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.flat.FlatStorage;
+import net.runelite.cache.index.FileData;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class StoreSnapshotTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Store store() throws IOException
+	{
+		return new Store(new FlatStorage(folder.newFolder()));
+	}
+
+	@Test
+	public void roundTrip() throws IOException
+	{
+		Store src = store();
+		Index idx = src.addIndex(3);
+		idx.setProtocol(7);
+		idx.setRevision(12);
+		idx.setNamed(true);
+		for (int i = 0; i < 3; i++)
+		{
+			FileData fd = new FileData();
+			fd.setId(i);
+			fd.setNameHash(100 + i);
+
+			Archive ar = idx.addArchive(i * 5);
+			ar.setRevision(i);
+			ar.setCrc(0x1000 + i);
+			ar.setNameHash(-i);
+			ar.setFileData(new FileData[]{fd});
+			if (i != 1)
+			{
+				src.getStorage().saveArchive(ar, new byte[]{1, 2, (byte) i});
+			}
+		}
+
+		File file = new File(folder.getRoot(), "snapshots/a.snap");
+		StoreSnapshot.write(file, src, src.getStorage());
+
+		Store dst = store();
+		StoreSnapshot snap = StoreSnapshot.read(file, dst);
+
+		Index didx = dst.findIndex(3);
+		Assert.assertNotNull(didx);
+		Assert.assertEquals(7, didx.getProtocol());
+		Assert.assertEquals(12, didx.getRevision());
+		Assert.assertTrue(didx.isNamed());
+		Assert.assertEquals(3, didx.getArchives().size());
+		for (int i = 0; i < 3; i++)
+		{
+			Archive sar = idx.getArchive(i * 5);
+			Archive dar = didx.getArchive(i * 5);
+			Assert.assertEquals(sar.getCrc(), dar.getCrc());
+			Assert.assertEquals(sar.getNameHash(), dar.getNameHash());
+			Assert.assertEquals(100 + i, dar.getFileData()[0].getNameHash());
+			Assert.assertArrayEquals(src.getStorage().loadArchive(sar), snap.load(dar));
+		}
+		Assert.assertNull(snap.load(didx.getArchive(5)));
+	}
+
+	@Test(expected = IOException.class)
+	public void truncatedSnapshotIsRejected() throws IOException
+	{
+		Store src = store();
+		src.getStorage().saveArchive(src.addIndex(0).addArchive(0), new byte[64]);
+
+		File file = folder.newFile("b.snap");
+		StoreSnapshot.write(file, src, src.getStorage());
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			raf.setLength(raf.length() - 10);
+		}
+
+		StoreSnapshot.read(file, store());
+	}
+}